@@ -0,0 +1,53 @@
+package org.example.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.persistence.CustomPersistenceUnitInfo;
+import org.example.persistence.PersistenceSettings;
+import org.hibernate.jpa.HibernatePersistenceProvider;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Creates an EntityManagerFactory on an in-memory H2 database for the benchmarks.
+// It uses the same CustomPersistenceUnitInfo and jpa.properties as the application, only the URL differs,
+// so the numbers reflect our real pool, batching and cache settings while running offline.
+public final class BenchmarkDatabase {
+
+    public static final String H2_URL = "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1";
+
+    private BenchmarkDatabase() {
+    }
+
+    public static EntityManagerFactory create() {
+        return create(new HashMap<>());
+    }
+
+    public static EntityManagerFactory create(Map<String, String> extraProps) {
+        PersistenceSettings settings = PersistenceSettings.load()
+                .with("jpa.datasource.url", H2_URL)
+                .with("jpa.datasource.username", "sa");
+
+        Map<String, String> props = new HashMap<>(extraProps);
+        props.putIfAbsent("hibernate.hbm2ddl.auto", "create");
+        props.putIfAbsent("hibernate.show_sql", "false");
+        return new HibernatePersistenceProvider()
+                .createContainerEntityManagerFactory(new CustomPersistenceUnitInfo(settings), props);
+    }
+
+    // Runs the work in its own EntityManager and transaction, like Main does.
+    public static void inTransaction(EntityManagerFactory entityManagerFactory, Consumer<EntityManager> work) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            work.accept(entityManager);
+            entityManager.getTransaction().commit();
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+        }
+    }
+}
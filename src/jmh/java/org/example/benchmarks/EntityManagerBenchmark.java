@@ -0,0 +1,196 @@
+package org.example.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entities.Employee;
+import org.example.entities.Stock;
+import org.example.entities.Student;
+import org.example.entities.keys.StockKeys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// The EntityManager operations shown in Main, measured against an in-memory H2 database.
+//
+// Every operation runs in a fresh EntityManager (and transaction where Main uses one), so a find()
+// is never answered by the persistence context of a previous invocation. It can still be answered by the
+// second-level cache for the cached entities (Stock), which is part of what we want to see.
+//
+// Modes:
+//    Throughput:  operations per second.
+//    SampleTime:  latency distribution, JMH prints p50/p90/p99/p99.9/p99.99.
+// The GC profiler adds the allocation rate and the bytes allocated per operation (gc.alloc.rate.norm).
+//
+// Run it with the main method below, or: java -cp <classpath> org.openjdk.jmh.Main EntityManagerBenchmark -prof gc
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntityManagerBenchmark {
+
+    private static final int ROWS = 1_000;
+
+    private EntityManagerFactory entityManagerFactory;
+    private final List<Long> employeeIds = new ArrayList<>();
+    private final List<UUID> studentIds = new ArrayList<>();
+    private final AtomicLong stockNumbers = new AtomicLong(ROWS);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        entityManagerFactory = BenchmarkDatabase.create();
+        BenchmarkDatabase.inTransaction(entityManagerFactory, entityManager -> {
+            for (int i = 0; i < ROWS; i++) {
+                Employee employee = newEmployee(i);
+                entityManager.persist(employee);
+                employeeIds.add(employee.getId());
+
+                Student student = new Student();
+                student.setName("Student " + i);
+                student.setAddress("Address " + i);
+                entityManager.persist(student);
+                studentIds.add(student.getId());
+
+                entityManager.persist(newStock(i));
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    // ----------------------------- persist + commit -----------------------------
+
+    @Benchmark
+    public void persistEmployee() {
+        BenchmarkDatabase.inTransaction(entityManagerFactory, entityManager -> entityManager.persist(newEmployee(0)));
+    }
+
+    // Includes generating the time-ordered UUID key and its HMAC-SHA256 signature (TimeOrderedUuidGenerator).
+    @Benchmark
+    public void persistStudent() {
+        BenchmarkDatabase.inTransaction(entityManagerFactory, entityManager -> {
+            Student student = new Student();
+            student.setName("Student");
+            student.setAddress("Address");
+            entityManager.persist(student);
+        });
+    }
+
+    @Benchmark
+    public void persistStock() {
+        BenchmarkDatabase.inTransaction(entityManagerFactory,
+                entityManager -> entityManager.persist(newStock(stockNumbers.getAndIncrement())));
+    }
+
+    // ----------------------------- find / getReference -----------------------------
+
+    @Benchmark
+    public Employee findEmployee() {
+        return read(entityManager -> entityManager.find(Employee.class, randomEmployeeId()));
+    }
+
+    @Benchmark
+    public Student findStudent() {
+        return read(entityManager -> entityManager.find(Student.class, studentIds.get(random(studentIds.size()))));
+    }
+
+    @Benchmark
+    public Stock findStock() {
+        int i = random(ROWS);
+        StockKeys keys = new StockKeys();
+        keys.setCode("code-" + i);
+        keys.setNumber(i);
+        return read(entityManager -> entityManager.find(Stock.class, keys));
+    }
+
+    // A reference is only a proxy: no SELECT unless a property is read.
+    @Benchmark
+    public Employee getReferenceEmployee() {
+        return read(entityManager -> entityManager.getReference(Employee.class, randomEmployeeId()));
+    }
+
+    // ----------------------------- refresh / update / remove -----------------------------
+
+    @Benchmark
+    public void findAndRefreshEmployee(Blackhole blackhole) {
+        BenchmarkDatabase.inTransaction(entityManagerFactory, entityManager -> {
+            Employee employee = entityManager.find(Employee.class, randomEmployeeId());
+            entityManager.refresh(employee);
+            blackhole.consume(employee);
+        });
+    }
+
+    // Renaming an employee: the change is found by dirty checking and written on commit.
+    @Benchmark
+    public void updateEmployee() {
+        BenchmarkDatabase.inTransaction(entityManagerFactory, entityManager ->
+                entityManager.find(Employee.class, randomEmployeeId()).setName("Renamed " + System.nanoTime()));
+    }
+
+    // Removes a row it just inserted, so the data set stays the same size.
+    @Benchmark
+    public void persistAndRemoveEmployee() {
+        Employee employee = newEmployee(0);
+        BenchmarkDatabase.inTransaction(entityManagerFactory, entityManager -> entityManager.persist(employee));
+        BenchmarkDatabase.inTransaction(entityManagerFactory,
+                entityManager -> entityManager.remove(entityManager.find(Employee.class, employee.getId())));
+    }
+
+    // ----------------------------- helpers -----------------------------
+
+    private <T> T read(Function<EntityManager, T> work) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return work.apply(entityManager);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private long randomEmployeeId() {
+        return employeeIds.get(random(employeeIds.size()));
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    private static Employee newEmployee(int i) {
+        Employee employee = new Employee();
+        employee.setName("Employee " + i);
+        employee.setAddress("Address " + i);
+        return employee;
+    }
+
+    private static Stock newStock(long i) {
+        Stock stock = new Stock();
+        stock.setCode("code-" + i);
+        stock.setNumber(i);
+        stock.setColor("Rosso");
+        return stock;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EntityManagerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
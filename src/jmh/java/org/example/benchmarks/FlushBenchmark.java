@@ -0,0 +1,88 @@
+package org.example.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entities.Employee;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Flush cost against the number of managed entities, with and without bytecode enhancement.
+//
+// Without enhancement a flush compares every managed entity with its snapshot, so it gets slower the more
+// entities the persistence context holds, even when only one of them changed. With in-line dirty tracking
+// a flush only asks each entity for its dirty flag.
+//
+// The entities are enhanced by the default build. For the "before" numbers build without it:
+//    mvn -Pbenchmarks clean compile -DskipEnhance
+// The setup prints which of the two is being measured.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlushBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int managedEntities;
+
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private List<Employee> employees;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.out.println("Employee enhanced with dirty tracking: " + SelfDirtinessTracker.class.isAssignableFrom(Employee.class));
+
+        entityManagerFactory = BenchmarkDatabase.create();
+        BenchmarkDatabase.inTransaction(entityManagerFactory, entityManager -> {
+            for (int i = 0; i < managedEntities; i++) {
+                Employee employee = new Employee();
+                employee.setName("Employee " + i);
+                employee.setAddress("Address " + i);
+                entityManager.persist(employee);
+            }
+        });
+
+        // One long transaction that keeps all employees managed, as in a long-running unit of work.
+        entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        employees = entityManager.createQuery("select e from Employee e", Employee.class).getResultList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.getTransaction().rollback();
+        entityManager.close();
+        entityManagerFactory.close();
+    }
+
+    // Pure dirty-checking cost: nothing changed, nothing is written.
+    @Benchmark
+    public void flushWithoutChanges() {
+        entityManager.flush();
+    }
+
+    // One entity changed: dirty checking plus a single UPDATE.
+    @Benchmark
+    public void flushOneChange() {
+        Employee employee = employees.get(next++ % employees.size());
+        employee.setName("Renamed " + next);
+        entityManager.flush();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(FlushBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entities.Employee;
+import org.example.queries.EmployeeSummary;
+import org.example.queries.NameAndAddress;
+import org.example.queries.Projections;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Entity reads against Projections, for one row and for a list page.
+//
+// The interesting number is gc.alloc.rate.norm (bytes per operation, from the GC profiler): an entity read also
+// allocates the snapshot and the persistence context entries, a projection only the result objects.
+// Each operation uses a fresh EntityManager, like a request of a list endpoint.
+//
+// Run it with the main method below, or: java -cp <classpath> org.openjdk.jmh.Main ProjectionBenchmark -prof gc
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectionBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"100"})
+    int pageSize;
+
+    private EntityManagerFactory entityManagerFactory;
+    private final List<Long> employeeIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        entityManagerFactory = BenchmarkDatabase.create();
+        BenchmarkDatabase.inTransaction(entityManagerFactory, entityManager -> {
+            for (int i = 0; i < ROWS; i++) {
+                Employee employee = new Employee();
+                employee.setName("Employee " + i);
+                employee.setAddress("Address " + i);
+                entityManager.persist(employee);
+                employeeIds.add(employee.getId());
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    // ----------------------------- one row -----------------------------
+
+    @Benchmark
+    public Employee findEmployee() {
+        return read(entityManager -> entityManager.find(Employee.class, randomEmployeeId()));
+    }
+
+    @Benchmark
+    public EmployeeSummary projectEmployee() {
+        return read(entityManager -> Projections.query(entityManager, Employee.class, EmployeeSummary.class, "where e.id = :id")
+                .setParameter("id", randomEmployeeId())
+                .getSingleResult());
+    }
+
+    // ----------------------------- one page -----------------------------
+
+    @Benchmark
+    public List<Employee> listEntities() {
+        return read(entityManager -> entityManager
+                .createQuery("select e from Employee e where e.id > :after order by e.id", Employee.class)
+                .setParameter("after", randomAfter())
+                .setMaxResults(pageSize)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<EmployeeSummary> listRecords() {
+        return read(entityManager -> Projections.query(entityManager, Employee.class, EmployeeSummary.class,
+                        "where e.id > :after order by e.id")
+                .setParameter("after", randomAfter())
+                .setMaxResults(pageSize)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<NameAndAddress> listInterfaces() {
+        return read(entityManager -> Projections.query(entityManager, Employee.class, NameAndAddress.class,
+                        "where e.id > :after order by e.id")
+                .setParameter("after", randomAfter())
+                .setMaxResults(pageSize)
+                .getResultList());
+    }
+
+    // ----------------------------- helpers -----------------------------
+
+    private <T> T read(Function<EntityManager, T> work) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return work.apply(entityManager);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private long randomEmployeeId() {
+        return employeeIds.get(ThreadLocalRandom.current().nextInt(employeeIds.size()));
+    }
+
+    // A page start that leaves a full page behind it.
+    private long randomAfter() {
+        return employeeIds.get(ThreadLocalRandom.current().nextInt(employeeIds.size() - pageSize)) - 1;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ProjectionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
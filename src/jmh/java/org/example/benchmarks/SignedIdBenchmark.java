@@ -0,0 +1,94 @@
+package org.example.benchmarks;
+
+import org.example.entities.generators.IdSigner;
+import org.example.entities.generators.SignatureAlgorithm;
+import org.example.entities.generators.SignedIdPool;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Compares the cost of a Student ID for every UUIDGenerator mode against the original RSA code path.
+//
+// IDs/sec is the benchmark score. The GC profiler adds "gc.alloc.rate.norm", the bytes allocated per ID.
+// Run it with the main method below, or: java -cp <classpath> org.openjdk.jmh.Main SignedIdBenchmark -prof gc
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignedIdBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SignerState {
+
+        @Param({"RSA", "ED25519", "HMAC_SHA256"})
+        SignatureAlgorithm algorithm;
+
+        IdSigner signer;
+        SignedIdPool pool;
+
+        @Setup
+        public void setUp() {
+            signer = IdSigner.forAlgorithm(algorithm);
+            pool = new SignedIdPool(signer, 4096);
+        }
+
+        @TearDown
+        public void tearDown() {
+            pool.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LegacyState {
+        KeyPair keyPair;
+
+        @Setup
+        public void setUp() throws NoSuchAlgorithmException {
+            KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+            keyGen.initialize(2048);
+            keyPair = keyGen.generateKeyPair();
+        }
+    }
+
+    // The code UUIDGenerator used to run for every insert: a new Signature and initSign() per ID.
+    @Benchmark
+    public String legacyRsa(LegacyState state) throws GeneralSecurityException {
+        String uuid = UUID.randomUUID().toString();
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(state.keyPair.getPrivate());
+        signature.update(uuid.getBytes(StandardCharsets.UTF_8));
+        String signedString = Base64.getEncoder().encodeToString(signature.sign());
+        return uuid + "-" + (signedString.length() > 100 ? signedString.substring(0, 100) : signedString);
+    }
+
+    // Per-thread signer state, the ID is signed on the calling thread.
+    @Benchmark
+    public String signOnDemand(SignerState state) {
+        return state.signer.newId();
+    }
+
+    // IDs taken from the pre-filled pool. Once the pool is drained this measures the filler thread
+    // and the caller generating together.
+    @Benchmark
+    public String pooled(SignerState state) {
+        return state.pool.take();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SignedIdBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.benchmarks;
+
+import org.example.entities.generators.IdSigner;
+import org.example.entities.generators.SignatureAlgorithm;
+import org.example.entities.generators.TimeOrderedUuidGenerator;
+import org.example.persistence.DataSourceManager;
+import org.example.persistence.PersistenceSettings;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+// Insert rate and index size of the two Student ID formats at 10M+ rows:
+//  - legacy:  varchar primary key "<uuid>-<tag>" (random, ~137 characters with RSA)
+//  - compact: time-ordered uuid primary key (16 bytes) + bytea signature column
+//
+// This is a plain main class instead of a JMH benchmark: the interesting number is how the insert rate develops
+// while the index grows, which is one long run and not many short iterations. Only the database work is timed,
+// the IDs of each batch are generated beforehand (in parallel, RSA signing would dominate otherwise).
+//
+// It runs against the database in jpa.properties and creates its own two tables. Index sizes need PostgreSQL.
+//    mvn -Pbenchmarks compile exec:java -Dexec.mainClass=org.example.benchmarks.StudentIdStorageBenchmark \
+//        -Drows=10000000 -Dalgorithm=RSA
+public class StudentIdStorageBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int REPORT_EVERY = 1_000_000;
+
+    public static void main(String[] args) throws SQLException {
+        PersistenceSettings settings = PersistenceSettings.load();
+        long rows = Long.getLong("rows", 10_000_000L);
+        IdSigner signer = IdSigner.forAlgorithm(SignatureAlgorithm.valueOf(System.getProperty("algorithm", "RSA")));
+
+        DataSource dataSource = DataSourceManager.forPersistenceUnit("student-id-benchmark", settings).getDataSource();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            createTables(connection);
+
+            System.out.printf("%,d rows per format, %s signatures%n", rows, signer.getAlgorithm());
+            run(connection, "legacy", "insert into student_id_legacy (id, name, address) values (?, ?, ?)", rows,
+                    () -> new Object[]{signer.newId()});
+            run(connection, "compact", "insert into student_id_compact (id, id_signature, name, address) values (?, ?, ?, ?)", rows,
+                    () -> {
+                        UUID id = TimeOrderedUuidGenerator.newUuid();
+                        return new Object[]{id, signer.signBytes(id)};
+                    });
+
+            printSizes(connection, "student_id_legacy");
+            printSizes(connection, "student_id_compact");
+        }
+    }
+
+    private static void createTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists student_id_legacy");
+            statement.execute("drop table if exists student_id_compact");
+            statement.execute("create table student_id_legacy (id varchar(255) primary key, name varchar(255), address varchar(255))");
+            statement.execute("create table student_id_compact (id uuid primary key, id_signature bytea, name varchar(255), address varchar(255))");
+        }
+        connection.commit();
+    }
+
+    // idValues produces the ID column(s) of one row, the remaining two parameters are name and address.
+    private static void run(Connection connection, String label, String sql, long rows, Supplier<Object[]> idValues) throws SQLException {
+        long totalNanos = 0;
+        long intervalNanos = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (long done = 0; done < rows; ) {
+                int batch = (int) Math.min(BATCH_SIZE, rows - done);
+                Object[][] batchRows = generate(batch, done, idValues);
+
+                long start = System.nanoTime();
+                for (Object[] row : batchRows) {
+                    for (int c = 0; c < row.length; c++) {
+                        statement.setObject(c + 1, row[c]);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+                long elapsed = System.nanoTime() - start;
+                totalNanos += elapsed;
+                intervalNanos += elapsed;
+
+                long before = done;
+                done += batch;
+                if (done / REPORT_EVERY != before / REPORT_EVERY || done == rows) {
+                    long intervalRows = done - before / REPORT_EVERY * REPORT_EVERY;
+                    System.out.printf("%-8s %,12d rows  %,10.0f rows/s (last %,d)  %,10.0f rows/s (overall)%n",
+                            label, done, intervalRows / (intervalNanos / 1e9), intervalRows, done / (totalNanos / 1e9));
+                    intervalNanos = 0;
+                }
+            }
+        }
+    }
+
+    // The parameter values of one batch. IdSigner keeps its Signature / Mac per thread, so this can run in parallel.
+    private static Object[][] generate(int batch, long offset, Supplier<Object[]> idValues) {
+        return IntStream.range(0, batch).parallel().mapToObj(i -> {
+            Object[] ids = idValues.get();
+            int idColumns = ids.length;
+            Object[] row = Arrays.copyOf(ids, idColumns + 2);
+            row[idColumns] = "Student " + (offset + i);
+            row[idColumns + 1] = "Address " + (offset + i);
+            return row;
+        }).toArray(Object[][]::new);
+    }
+
+    private static void printSizes(Connection connection, String table) throws SQLException {
+        String sql = "select pg_relation_size(i.indexrelid), pg_relation_size(i.indrelid) from pg_index i "
+                + "where i.indrelid = '" + table + "'::regclass and i.indisprimary";
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            System.out.printf("%-20s primary key index %,8d MB   table %,8d MB%n",
+                    table, resultSet.getLong(1) / (1024 * 1024), resultSet.getLong(2) / (1024 * 1024));
+        } catch (SQLException e) {
+            connection.rollback();
+            System.out.printf("%-20s index size n/a (PostgreSQL only)%n", table);
+        }
+    }
+}
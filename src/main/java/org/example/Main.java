@@ -5,6 +5,8 @@ import jakarta.persistence.EntityManagerFactory;
 import org.example.entities.Employee;
 import org.example.entities.Stock;
 import org.example.entities.Student;
+import org.example.metrics.InMemoryMetricsRecorder;
+import org.example.metrics.Metrics;
 import org.example.persistence.CustomPersistenceUnitInfo;
 import org.hibernate.jpa.HibernatePersistenceProvider;
 
@@ -19,7 +21,10 @@ public class Main {
         // It's a special feature Hibernate has. You can see details about the SQL
         // process and its mutation that JPA does when you run the project.
         // Example: Hibernate: select e1_0.id,e1_0.address,e1_0.name from Employee e1_0 where e1_0.id=?
-        props.put("hibernate.show_sql","true");
+        // Printing every statement synchronously is expensive and says nothing about timing, so it is off.
+        // Instead, jpa.metrics.* in jpa.properties times every statement and operation (see the report printed
+        // at the end) and logs the slow ones with their parameters.
+        // props.put("hibernate.show_sql","true");
 
         /*
         * hibernate.hbm2ddl.auto Automatically validates or exports schema DDL
@@ -33,6 +38,9 @@ public class Main {
             create-drop: drop the schema when the SessionFactory is closed explicitly, typically when the application is stopped.
             none: does nothing with the schema, makes no changes to the database
         */
+        // "create" rebuilds the schema on every start, which is fine for this example but far too slow (and
+        // destructive) for production. There, org.example.persistence.FastBootstrap only checks a fingerprint of
+        // the mappings and skips the DDL when nothing changed.
         props.put("hibernate.hbm2ddl.auto", "create");
 
         // The following code (commented out) shows an alternate method where you would use the default
@@ -44,8 +52,10 @@ public class Main {
         // using Hibernate as the persistence provider, along with a custom configuration for the persistence unit.
         // CustomPersistenceUnitInfo holds specific configurations like database connection settings, entities, etc.
         // It is a more dynamic and flexible approach to configuration compared to XML-based configurations.
+        // The connection pool is created once per persistence unit and configured in "jpa.properties".
+        CustomPersistenceUnitInfo persistenceUnitInfo = new CustomPersistenceUnitInfo();
         EntityManagerFactory entityManagerFactory = new HibernatePersistenceProvider()
-                .createContainerEntityManagerFactory(new CustomPersistenceUnitInfo(),props);
+                .createContainerEntityManagerFactory(persistenceUnitInfo,props);
 
         // Creating the EntityManager instance here. The EntityManager is the main interface for interacting with
         // the persistence context, which means managing entities, executing queries, and performing CRUD operations.
@@ -73,7 +83,7 @@ public class Main {
             // The 'find' method is used to look up the Employee by its primary key (id).
             // In this case, we're finding the employee with an ID of 1, and then printing their name to the console.
             // The 'find' method retrieves the object from the database if it exists or returns null if not found.
-            // Employee employeeProp = entityManager.find(Employee.class, 1);
+            // Employee employeeProp = entityManager.find(Employee.class, 1L);
             // System.out.println(employeeProp.getName()); // Output the name of the employee to the console.
 
 
@@ -90,8 +100,8 @@ public class Main {
             * If you're using a default mapping, Hibernate fetches all basic attributes and initializes all to-one associations.
             * The getReference method returns a reference to an entity object.
             */
-            // Employee employeeProp2 = entityManager.find(Employee.class, 2);
-            // Employee reference = entityManager.getReference(Employee.class, 2);
+            // Employee employeeProp2 = entityManager.find(Employee.class, 2L);
+            // Employee reference = entityManager.getReference(Employee.class, 2L);
             // System.out.println(employeeProp2);
             // System.out.println(reference);
 
@@ -118,6 +128,14 @@ public class Main {
             // Ensure that the EntityManager is closed, releasing resources such as database connections.
             // This is important to avoid memory leaks and to properly manage the connection pool.
             entityManager.close();
+
+            // Active/idle connections and how long we waited for a connection.
+            System.out.println(persistenceUnitInfo.getDataSourceManager().getPrimaryMetrics());
+
+            // Latency of every operation and statement.
+            if (Metrics.getRecorder() instanceof InMemoryMetricsRecorder recorder) {
+                System.out.println(recorder.report());
+            }
         }
     }
 }
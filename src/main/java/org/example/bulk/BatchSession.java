@@ -0,0 +1,169 @@
+package org.example.bulk;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.example.persistence.PersistenceSettings;
+import org.hibernate.Session;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.function.Consumer;
+
+// A long unit of work in one transaction that runs in bounded memory.
+//
+// A plain EntityManager keeps everything it persisted or loaded managed until close(), so a batch job holds
+// every row in memory and every flush dirty-checks all of them again. A BatchSession flushes and clears the
+// persistence context every chunkSize write operations, or earlier when the used heap passes heapWatermark
+// (a fraction of the maximum heap), so that nobody has to write flush()/clear() loops by hand.
+//
+// The chunk size is rounded up to a multiple of the JDBC batch size, and the heap is only checked on JDBC batch
+// boundaries, so a flush never sends a half-filled batch in the middle of the job.
+//
+// After a chunk the entities passed to persist() or returned by find()/merge() are detached: changing them
+// later has no effect. Keep IDs instead of entities across chunks.
+//
+// Example:
+//    try (BatchSession session = new BatchSession(entityManagerFactory, settings)) {
+//        session.setChunkListener(System.out::println);
+//        employees.forEach(session::persist);
+//        session.commit();
+//    }
+public class BatchSession implements AutoCloseable {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private final EntityManager entityManager;
+    private final EntityTransaction transaction;
+    private final int jdbcBatchSize;
+    private final int chunkSize;
+    private final double heapWatermark;
+    private Consumer<ChunkStats> chunkListener = stats -> { };
+
+    private int operationsInChunk;
+    private long operations;
+    private int chunks;
+    private long chunkStart = System.nanoTime();
+
+    // heapWatermark <= 0 or >= 1 turns the heap check off.
+    public BatchSession(EntityManagerFactory entityManagerFactory, int chunkSize, int jdbcBatchSize, double heapWatermark) {
+        if (chunkSize <= 0 || jdbcBatchSize <= 0) {
+            throw new IllegalArgumentException("chunkSize and jdbcBatchSize must be positive");
+        }
+        this.jdbcBatchSize = jdbcBatchSize;
+        this.chunkSize = (chunkSize + jdbcBatchSize - 1) / jdbcBatchSize * jdbcBatchSize;
+        this.heapWatermark = heapWatermark;
+        this.entityManager = entityManagerFactory.createEntityManager();
+        entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+        this.transaction = entityManager.getTransaction();
+        transaction.begin();
+    }
+
+    public BatchSession(EntityManagerFactory entityManagerFactory, PersistenceSettings settings) {
+        this(entityManagerFactory,
+                settings.getInt("jpa.batch-session.chunk-size", 1000),
+                settings.getInt("hibernate.jdbc.batch_size", 50),
+                Double.parseDouble(settings.get("jpa.batch-session.heap-watermark", "0.8")));
+    }
+
+    public void setChunkListener(Consumer<ChunkStats> chunkListener) {
+        this.chunkListener = chunkListener;
+    }
+
+    public void persist(Object entity) {
+        entityManager.persist(entity);
+        operationDone();
+    }
+
+    public <T> T merge(T entity) {
+        T managed = entityManager.merge(entity);
+        operationDone();
+        return managed;
+    }
+
+    public void remove(Object entity) {
+        entityManager.remove(entityManager.contains(entity) ? entity : entityManager.merge(entity));
+        operationDone();
+    }
+
+    // Loaded entities count towards the chunk as well, they take persistence context memory like written ones.
+    public <T> T find(Class<T> entityClass, Object id) {
+        T entity = entityManager.find(entityClass, id);
+        operationDone();
+        return entity;
+    }
+
+    // For queries. Entities loaded through it are cleared with the next chunk but do not advance the count.
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public long getOperations() {
+        return operations;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    // Flushes and clears now, e.g. before a step that must see the previous writes in the database.
+    public void flushAndClear() {
+        endChunk(false);
+    }
+
+    // Writes the last chunk and commits the whole unit of work.
+    public void commit() {
+        endChunk(false);
+        transaction.commit();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private void operationDone() {
+        operations++;
+        operationsInChunk++;
+        if (operationsInChunk >= chunkSize) {
+            endChunk(false);
+        } else if (operationsInChunk % jdbcBatchSize == 0 && heapAboveWatermark()) {
+            endChunk(true);
+        }
+    }
+
+    private boolean heapAboveWatermark() {
+        if (heapWatermark <= 0 || heapWatermark >= 1) {
+            return false;
+        }
+        MemoryUsage heap = MEMORY.getHeapMemoryUsage();
+        return heap.getMax() > 0 && heap.getUsed() > heap.getMax() * heapWatermark;
+    }
+
+    private void endChunk(boolean heapTriggered) {
+        if (operationsInChunk == 0) {
+            return;
+        }
+        int managed = entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+        long flushStart = System.nanoTime();
+        entityManager.flush();
+        long now = System.nanoTime();
+        entityManager.clear();
+
+        chunks++;
+        chunkListener.accept(new ChunkStats(chunks, operationsInChunk, managed, now - flushStart, now - chunkStart, heapTriggered));
+        operationsInChunk = 0;
+        chunkStart = System.nanoTime();
+    }
+}
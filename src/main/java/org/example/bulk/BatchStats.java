@@ -0,0 +1,17 @@
+package org.example.bulk;
+
+import java.util.concurrent.TimeUnit;
+
+// Timing of one committed batch.
+public record BatchStats(int batchNumber, int rows, long elapsedNanos) {
+
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("batch %d: %d rows in %.1f ms (%.0f rows/s)",
+                batchNumber, rows, elapsedNanos / 1_000_000.0, rowsPerSecond());
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.bulk;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.persister.entity.EntityPersister;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Writes a stream of entities in batches, each batch in its own transaction.
+//
+//    PERSISTENCE_CONTEXT:  entityManager.persist() with JDBC batching, the context is cleared after every batch.
+//    STATELESS:            A Hibernate StatelessSession: no persistence context, no dirty checking, no cascades.
+//    COPY:                 PostgreSQL COPY of CSV rows, the fastest path. IDs are still produced by the entity's
+//                          generator, but nothing else Hibernate does (callbacks, cascades) happens.
+//
+// Example:
+//    BulkLoader loader = new BulkLoader(entityManagerFactory, BulkLoader.Mode.STATELESS, 1000);
+//    loader.setBatchListener(System.out::println);
+//    LoadReport report = loader.load(Stock.class, stocks);
+public class BulkLoader {
+
+    public enum Mode {
+        PERSISTENCE_CONTEXT,
+        STATELESS,
+        COPY
+    }
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Mode mode;
+    private final int batchSize;
+    private Consumer<BatchStats> batchListener = stats -> { };
+
+    public BulkLoader(EntityManagerFactory entityManagerFactory, Mode mode, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.entityManagerFactory = entityManagerFactory;
+        this.mode = mode;
+        this.batchSize = batchSize;
+    }
+
+    // Called after every committed batch, e.g. to print rows/sec.
+    public void setBatchListener(Consumer<BatchStats> batchListener) {
+        this.batchListener = batchListener;
+    }
+
+    public <T> LoadReport load(Class<T> entityClass, Stream<T> entities) {
+        long start = System.nanoTime();
+        long rows = 0;
+        int batches = 0;
+
+        try (entities; BatchWriter<T> writer = openWriter(entityClass)) {
+            Iterator<T> iterator = entities.iterator();
+            List<T> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize || !iterator.hasNext()) {
+                    long batchStart = System.nanoTime();
+                    writer.write(batch);
+                    batches++;
+                    rows += batch.size();
+                    batchListener.accept(new BatchStats(batches, batch.size(), System.nanoTime() - batchStart));
+                    batch.clear();
+                }
+            }
+        }
+        return new LoadReport(mode, rows, batches, System.nanoTime() - start);
+    }
+
+    private <T> BatchWriter<T> openWriter(Class<T> entityClass) {
+        return switch (mode) {
+            case PERSISTENCE_CONTEXT -> new PersistenceContextWriter<>();
+            case STATELESS -> new StatelessWriter<>();
+            case COPY -> new CopyWriter<>(CopyMapping.forEntity(entityClass));
+        };
+    }
+
+    private interface BatchWriter<T> extends AutoCloseable {
+        void write(List<T> batch);
+
+        @Override
+        void close();
+    }
+
+    private class PersistenceContextWriter<T> implements BatchWriter<T> {
+        private final EntityManager entityManager = entityManagerFactory.createEntityManager();
+
+        PersistenceContextWriter() {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        }
+
+        @Override
+        public void write(List<T> batch) {
+            EntityTransaction transaction = entityManager.getTransaction();
+            transaction.begin();
+            try {
+                batch.forEach(entityManager::persist);
+                transaction.commit();
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            } finally {
+                // Without this every inserted entity would stay managed until the end of the load.
+                entityManager.clear();
+            }
+        }
+
+        @Override
+        public void close() {
+            entityManager.close();
+        }
+    }
+
+    private class StatelessWriter<T> implements BatchWriter<T> {
+        final StatelessSession session = entityManagerFactory.unwrap(SessionFactory.class).openStatelessSession();
+
+        StatelessWriter() {
+            session.setJdbcBatchSize(batchSize);
+        }
+
+        @Override
+        public void write(List<T> batch) {
+            inTransaction(() -> batch.forEach(session::insert));
+        }
+
+        void inTransaction(Runnable work) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                work.run();
+                transaction.commit();
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() {
+            session.close();
+        }
+    }
+
+    private class CopyWriter<T> extends StatelessWriter<T> {
+        private final CopyMapping<T> mapping;
+
+        CopyWriter(CopyMapping<T> mapping) {
+            this.mapping = mapping;
+        }
+
+        @Override
+        public void write(List<T> batch) {
+            inTransaction(() -> {
+                StringBuilder csv = new StringBuilder(batch.size() * 64);
+                for (T entity : batch) {
+                    assignIdentifier(entity);
+                    mapping.appendRow(entity, csv);
+                }
+                session.doWork(connection -> {
+                    if (!connection.isWrapperFor(PGConnection.class)) {
+                        throw new IllegalStateException("COPY mode requires a PostgreSQL connection");
+                    }
+                    try {
+                        connection.unwrap(PGConnection.class).getCopyAPI().copyIn(mapping.copySql(), new StringReader(csv.toString()));
+                    } catch (IOException e) {
+                        throw new RuntimeException("Error while copying " + batch.size() + " rows", e);
+                    }
+                });
+            });
+        }
+
+        // COPY does not go through Hibernate, so generated IDs (Employee's sequence, Student's time-ordered UUID)
+        // are produced here with the entity's own generator. Composite keys (Stock) are always assigned.
+        private void assignIdentifier(T entity) {
+            SharedSessionContractImplementor implementor = (SharedSessionContractImplementor) session;
+            EntityPersister persister = implementor.getEntityPersister(null, entity);
+            if (persister.getIdentifierType().isComponentType()) {
+                return;
+            }
+            Object id = persister.getIdentifier(entity, implementor);
+            if (id == null || (id instanceof Number number && number.longValue() == 0)) {
+                // An IDENTITY column only gets its value while the row is inserted, which COPY cannot return.
+                if (!(persister.getGenerator() instanceof BeforeExecutionGenerator generator)) {
+                    throw new IllegalStateException("COPY needs an ID generated before the insert, "
+                            + persister.getEntityName() + " uses " + persister.getGenerator().getClass().getSimpleName());
+                }
+                persister.setIdentifier(entity, generator.generate(implementor, entity, null, EventType.INSERT), implementor);
+            }
+        }
+    }
+}
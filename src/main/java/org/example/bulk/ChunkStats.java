@@ -0,0 +1,17 @@
+package org.example.bulk;
+
+// One flush + clear of a BatchSession.
+//    managedEntities:  size of the persistence context just before it was cleared
+//    flushNanos:       time of the flush (the JDBC batches) alone
+//    elapsedNanos:     time since the previous chunk ended, including the caller's work
+//    heapTriggered:    the chunk was cut early because the heap watermark was reached
+public record ChunkStats(int chunkNumber, int operations, int managedEntities, long flushNanos, long elapsedNanos,
+                         boolean heapTriggered) {
+
+    @Override
+    public String toString() {
+        return String.format("chunk %d: %d operations, %d managed entities, flush %.1f ms, total %.1f ms%s",
+                chunkNumber, operations, managedEntities, flushNanos / 1_000_000.0, elapsedNanos / 1_000_000.0,
+                heapTriggered ? " (heap watermark)" : "");
+    }
+}
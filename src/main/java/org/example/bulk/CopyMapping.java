@@ -0,0 +1,92 @@
+package org.example.bulk;
+
+import org.example.entities.Employee;
+import org.example.entities.Product;
+import org.example.entities.Stock;
+import org.example.entities.Student;
+
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Describes how an entity is written as a CSV row for PostgreSQL "COPY ... FROM STDIN".
+// The same column list is used by the StreamingExporter to write CSV and NDJSON files.
+// COPY bypasses Hibernate completely, so the table and column names must match the generated schema
+// (PostgreSQL folds the unquoted entity and field names to lower case).
+public final class CopyMapping<T> {
+
+    public static final CopyMapping<Employee> EMPLOYEE = new CopyMapping<>("employee", List.of("id", "name", "address"),
+            employee -> new Object[]{employee.getId(), employee.getName(), employee.getAddress()});
+
+    public static final CopyMapping<Student> STUDENT = new CopyMapping<>("student", List.of("id", "id_signature", "name", "address"),
+            student -> new Object[]{student.getId(), student.getIdSignature(), student.getName(), student.getAddress()});
+
+    public static final CopyMapping<Stock> STOCK = new CopyMapping<>("stock", List.of("code", "number", "color"),
+            stock -> new Object[]{stock.getCode(), stock.getNumber(), stock.getColor()});
+
+    // updated_at is normally set by Hibernate (@UpdateTimestamp), which COPY skips, so a new product gets the
+    // time it is copied. ProductNameSnapshot only picks up rows by this column.
+    public static final CopyMapping<Product> PRODUCT = new CopyMapping<>("product", List.of("id", "name", "updated_at"),
+            product -> new Object[]{product.getId(), product.getName(),
+                    product.getUpdatedAt() != null ? product.getUpdatedAt() : Instant.now()});
+
+    private static final Map<Class<?>, CopyMapping<?>> MAPPINGS = Map.of(
+            Employee.class, EMPLOYEE,
+            Student.class, STUDENT,
+            Stock.class, STOCK,
+            Product.class, PRODUCT);
+
+    private final String table;
+    private final List<String> columns;
+    private final Function<T, Object[]> values;
+
+    public CopyMapping(String table, List<String> columns, Function<T, Object[]> values) {
+        this.table = table;
+        this.columns = columns;
+        this.values = values;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> CopyMapping<T> forEntity(Class<T> entityClass) {
+        CopyMapping<T> mapping = (CopyMapping<T>) MAPPINGS.get(entityClass);
+        if (mapping == null) {
+            throw new IllegalArgumentException("No COPY mapping for " + entityClass.getName());
+        }
+        return mapping;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    // The column values of one entity, in the order of getColumns().
+    public Object[] getValues(T entity) {
+        return values.apply(entity);
+    }
+
+    public String copySql() {
+        return "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)";
+    }
+
+    // In CSV format an unquoted empty field is NULL and a quoted one is an empty string,
+    // so every non-null text value is quoted. Binary values use the bytea hex input format.
+    public void appendRow(T entity, StringBuilder csv) {
+        Object[] row = values.apply(entity);
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                csv.append(',');
+            }
+            Object value = row[i];
+            if (value instanceof Number || value instanceof Boolean) {
+                csv.append(value);
+            } else if (value instanceof byte[] bytes) {
+                csv.append("\\x").append(HexFormat.of().formatHex(bytes));
+            } else if (value != null) {
+                csv.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+            }
+        }
+        csv.append('\n');
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.bulk;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Totals of a StockImporter run, plus one WorkerStats per partition.
+public record ImportReport(long rows, long inserted, long updated, long elapsedNanos, List<WorkerStats> workers) {
+
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(String.format("%d rows (%d inserted, %d updated) in %.1f ms (%.0f rows/s)",
+                rows, inserted, updated, elapsedNanos / 1_000_000.0, rowsPerSecond()));
+        workers.forEach(worker -> out.append("\n  ").append(worker));
+        return out.toString();
+    }
+}
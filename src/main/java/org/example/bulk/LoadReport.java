@@ -0,0 +1,17 @@
+package org.example.bulk;
+
+import java.util.concurrent.TimeUnit;
+
+// Totals of a whole BulkLoader.load() call.
+public record LoadReport(BulkLoader.Mode mode, long rows, int batches, long elapsedNanos) {
+
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d rows in %d batches, %.1f ms (%.0f rows/s)",
+                mode, rows, batches, elapsedNanos / 1_000_000.0, rowsPerSecond());
+    }
+}
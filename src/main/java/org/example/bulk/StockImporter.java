@@ -0,0 +1,357 @@
+package org.example.bulk;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.example.entities.Stock;
+import org.example.entities.keys.StockKeys;
+import org.example.queries.StockLookup;
+import org.hibernate.Session;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Loads a stock feed (CSV "code,number,color", the CopyMapping.STOCK / StreamingExporter layout) on all cores.
+//
+// The file is read through memory-mapped windows of up to windowSize bytes. For every window:
+//  1. Parse: one quick pass finds the record boundaries, the window is split at them into ranges of a few MB
+//     that are parsed in parallel. Every row is put into the partition floorMod(code.hashCode(), partitions).
+//  2. Write: every partition is written by its own task with its own EntityManager, transactions and
+//     JDBC batches. All rows of one code land in the same partition, so two workers never touch the same
+//     row and cannot block or deadlock each other.
+// Memory is bounded by the window, not by the file.
+//
+// A record ends at a newline outside double quotes, so quoted fields may contain line breaks, as the CSV the
+// StreamingExporter writes does. Finding the boundaries needs the quote state from the start of the window,
+// which is why it is a sequential pass before the parallel parse. A single record cannot be larger than the
+// window.
+//
+// Rows are upserted ("merge on conflict"): the existing keys of every batch are found with one StockLookup
+// (persistence context, second-level cache, then one IN query), existing stocks get the new color, new ones
+// are persisted. If a key appears more than once in the feed, the last line wins.
+//
+// Every partition uses a connection while it writes, so partitions should not exceed the pool size.
+//
+// Example:
+//    StockImporter importer = new StockImporter(entityManagerFactory, 8, 1000);
+//    ImportReport report = importer.importFile(Path.of("stock-feed.csv"));
+//    System.out.println(report);
+public class StockImporter {
+
+    private static final int PARSE_SPLIT_BYTES = 4 * 1024 * 1024;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final int partitions;
+    private final int batchSize;
+    private final long windowSize;
+    private final StockLookup lookup;
+
+    public StockImporter(EntityManagerFactory entityManagerFactory, int partitions, int batchSize) {
+        this(entityManagerFactory, partitions, batchSize, 256L * 1024 * 1024);
+    }
+
+    public StockImporter(EntityManagerFactory entityManagerFactory, int partitions, int batchSize, long windowSize) {
+        if (partitions <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("partitions and batchSize must be positive");
+        }
+        if (windowSize <= 0 || windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("windowSize must be between 1 and " + Integer.MAX_VALUE);
+        }
+        this.entityManagerFactory = entityManagerFactory;
+        this.partitions = partitions;
+        this.batchSize = batchSize;
+        this.windowSize = windowSize;
+        this.lookup = new StockLookup(batchSize);
+    }
+
+    public ImportReport importFile(Path file) {
+        long start = System.nanoTime();
+        Worker[] workers = new Worker[partitions];
+        for (int i = 0; i < partitions; i++) {
+            workers[i] = new Worker(i);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(partitions);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+                // Only complete records, the rest is read again with the next window.
+                List<Integer> starts = new ArrayList<>();
+                int end = splitRecords(window, position + window.limit() >= size, starts);
+                if (end == 0) {
+                    throw new IllegalArgumentException("Record longer than the window size at byte " + position);
+                }
+
+                List<ParseTask> parseTasks = new ArrayList<>();
+                for (int i = 0; i < starts.size(); i++) {
+                    int from = starts.get(i);
+                    parseTasks.add(new ParseTask(window, from, i + 1 < starts.size() ? starts.get(i + 1) : end,
+                            position == 0 && from == 0));
+                }
+                List<List<Stock>> parsed = new ArrayList<>(partitions);
+                for (int p = 0; p < partitions; p++) {
+                    parsed.add(new ArrayList<>());
+                }
+                for (Future<List<List<Stock>>> range : pool.invokeAll(parseTasks)) {
+                    List<List<Stock>> rows = range.get();
+                    for (int p = 0; p < partitions; p++) {
+                        parsed.get(p).addAll(rows.get(p));
+                    }
+                }
+                List<Callable<Void>> writes = new ArrayList<>();
+                for (Worker worker : workers) {
+                    List<Stock> rows = parsed.get(worker.partition);
+                    if (!rows.isEmpty()) {
+                        writes.add(() -> worker.write(rows));
+                    }
+                }
+                for (Future<Void> write : pool.invokeAll(writes)) {
+                    write.get();
+                }
+                position += end;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading " + file, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        List<WorkerStats> stats = new ArrayList<>();
+        long rows = 0;
+        long inserted = 0;
+        long updated = 0;
+        for (Worker worker : workers) {
+            stats.add(new WorkerStats(worker.partition, worker.rows, worker.inserted, worker.updated, worker.busyNanos));
+            rows += worker.rows;
+            inserted += worker.inserted;
+            updated += worker.updated;
+        }
+        return new ImportReport(rows, inserted, updated, System.nanoTime() - start, stats);
+    }
+
+    // Returns the end of the last complete record of the window (its limit at the end of the file) and adds the
+    // start of every parse range, about PARSE_SPLIT_BYTES apart, to starts.
+    private static int splitRecords(MappedByteBuffer window, boolean endOfFile, List<Integer> starts) {
+        int limit = window.limit();
+        int end = 0;
+        starts.add(0);
+        while (true) {
+            int newline = recordEnd(window, end, limit);
+            if (newline < 0) {
+                break;
+            }
+            end = newline + 1;
+            if (end - starts.getLast() >= PARSE_SPLIT_BYTES && end < limit) {
+                starts.add(end);
+            }
+        }
+        return endOfFile ? limit : end;
+    }
+
+    // Index of the newline that ends the record starting at from, or -1 if it does not end before to.
+    // A double quote at the start of a field opens a quoted field, in which newlines and commas are data;
+    // "" inside it is an escaped quote (closes and immediately reopens the field).
+    static int recordEnd(ByteBuffer buffer, int from, int to) {
+        boolean quoted = false;
+        boolean fieldStart = true;
+        boolean closed = false;
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (quoted) {
+                if (b == '"') {
+                    quoted = false;
+                    closed = true;
+                }
+                continue;
+            }
+            if (b == '"' && (fieldStart || closed)) {
+                quoted = true;
+            } else if (b == '\n') {
+                return i;
+            }
+            fieldStart = b == ',';
+            closed = false;
+        }
+        return -1;
+    }
+
+    // ----------------------------- parse -----------------------------
+
+    // Parses the records in [from, to) of the window into one row list per partition, in file order.
+    private class ParseTask implements Callable<List<List<Stock>>> {
+        private final MappedByteBuffer window;
+        private final int from;
+        private final int to;
+        private final boolean firstInFile;
+
+        ParseTask(MappedByteBuffer window, int from, int to, boolean firstInFile) {
+            this.window = window;
+            this.from = from;
+            this.to = to;
+            this.firstInFile = firstInFile;
+        }
+
+        @Override
+        public List<List<Stock>> call() {
+            List<List<Stock>> result = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; p++) {
+                result.add(new ArrayList<>());
+            }
+            List<String> fields = new ArrayList<>(3);
+            int recordStart = from;
+            while (recordStart < to) {
+                int newline = recordEnd(window, recordStart, to);
+                int i = newline < 0 ? to : newline;
+                int recordEnd = i > recordStart && window.get(i - 1) == '\r' ? i - 1 : i;
+                if (recordEnd > recordStart && !(firstInFile && recordStart == 0 && isHeader(recordStart, recordEnd))) {
+                    Stock stock = parseLine(recordStart, recordEnd, fields);
+                    result.get(Math.floorMod(stock.getCode().hashCode(), partitions)).add(stock);
+                }
+                recordStart = i + 1;
+            }
+            return result;
+        }
+
+        // CSV with optional double quotes ("" inside a quoted field is a quote). An empty unquoted field is null.
+        private Stock parseLine(int start, int end, List<String> fields) {
+            fields.clear();
+            int i = start;
+            while (i <= end) {
+                if (i < end && window.get(i) == '"') {
+                    StringBuilder value = new StringBuilder();
+                    int chunkStart = ++i;
+                    while (i < end) {
+                        if (window.get(i) == '"') {
+                            value.append(text(chunkStart, i));
+                            if (i + 1 < end && window.get(i + 1) == '"') {
+                                value.append('"');
+                                i += 2;
+                                chunkStart = i;
+                                continue;
+                            }
+                            break;
+                        }
+                        i++;
+                    }
+                    fields.add(value.toString());
+                    i += 2;  // closing quote and comma
+                } else {
+                    int fieldStart = i;
+                    while (i < end && window.get(i) != ',') {
+                        i++;
+                    }
+                    fields.add(i == fieldStart ? null : text(fieldStart, i));
+                    i++;
+                }
+            }
+            if (fields.size() != 3 || fields.get(0) == null || fields.get(1) == null) {
+                throw new IllegalArgumentException("Expected code,number,color but got: " + text(start, end));
+            }
+
+            Stock stock = new Stock();
+            stock.setCode(fields.get(0));
+            try {
+                stock.setNumber(Long.parseLong(fields.get(1).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number in line: " + text(start, end), e);
+            }
+            stock.setColor(fields.get(2));
+            return stock;
+        }
+
+        // The header line the exporter writes: code,number,color
+        private boolean isHeader(int start, int end) {
+            return text(start, end).replace("\"", "").toLowerCase().startsWith("code,");
+        }
+
+        private String text(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            window.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    // ----------------------------- write -----------------------------
+
+    // State of one partition over all windows. Only one task at a time writes a partition.
+    private class Worker {
+        private final int partition;
+        private long rows;
+        private long inserted;
+        private long updated;
+        private long busyNanos;
+
+        Worker(int partition) {
+            this.partition = partition;
+        }
+
+        Void write(List<Stock> stocks) {
+            long start = System.nanoTime();
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            try {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                for (int from = 0; from < stocks.size(); from += batchSize) {
+                    writeBatch(entityManager, stocks.subList(from, Math.min(stocks.size(), from + batchSize)));
+                }
+            } finally {
+                entityManager.close();
+                busyNanos += System.nanoTime() - start;
+            }
+            return null;
+        }
+
+        private void writeBatch(EntityManager entityManager, List<Stock> batch) {
+            // The last line of a key wins.
+            Map<StockKeys, Stock> byKey = new LinkedHashMap<>();
+            for (Stock stock : batch) {
+                byKey.put(new StockKeys(stock.getCode(), stock.getNumber()), stock);
+            }
+
+            EntityTransaction transaction = entityManager.getTransaction();
+            transaction.begin();
+            try {
+                Map<StockKeys, Stock> existing = lookup.findAll(entityManager, byKey.keySet());
+                for (Map.Entry<StockKeys, Stock> entry : byKey.entrySet()) {
+                    Stock current = existing.get(entry.getKey());
+                    if (current != null) {
+                        current.setColor(entry.getValue().getColor());
+                        updated++;
+                    } else {
+                        entityManager.persist(entry.getValue());
+                        inserted++;
+                    }
+                }
+                transaction.commit();
+                rows += batch.size();
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            } finally {
+                entityManager.clear();
+            }
+        }
+    }
+}
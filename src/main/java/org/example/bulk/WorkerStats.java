@@ -0,0 +1,17 @@
+package org.example.bulk;
+
+import java.util.concurrent.TimeUnit;
+
+// Rows written by one StockImporter partition. busyNanos is the time spent writing, not waiting.
+public record WorkerStats(int partition, long rows, long inserted, long updated, long busyNanos) {
+
+    public double rowsPerSecond() {
+        return busyNanos == 0 ? 0 : rows * (double) TimeUnit.SECONDS.toNanos(1) / busyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("partition %d: %d rows (%d inserted, %d updated) in %.1f ms (%.0f rows/s)",
+                partition, rows, inserted, updated, busyNanos / 1_000_000.0, rowsPerSecond());
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.cache;
+
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+// Marks a query as cacheable, so repeated executions with the same parameters are answered from the
+// query-result cache. Only the IDs of the result are cached; the entities themselves come from their
+// entity region, which is why this pays off for cached entities such as Product and Stock.
+//
+// Example:
+//    List<Stock> red = CachedQueries.cacheable(entityManager
+//            .createQuery("select s from Stock s where s.color = :color", Stock.class)
+//            .setParameter("color", "Rosso"), CachedQueries.CATALOG_REGION)
+//            .getResultList();
+public final class CachedQueries {
+
+    // Query region configured in ehcache.xml.
+    public static final String CATALOG_REGION = "catalog-queries";
+
+    private CachedQueries() {
+    }
+
+    public static <T> TypedQuery<T> cacheable(TypedQuery<T> query) {
+        return query.setHint(HibernateHints.HINT_CACHEABLE, true);
+    }
+
+    public static <T> TypedQuery<T> cacheable(TypedQuery<T> query, String region) {
+        return cacheable(query).setHint(HibernateHints.HINT_CACHE_REGION, region);
+    }
+}
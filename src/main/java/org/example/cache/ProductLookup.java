@@ -0,0 +1,25 @@
+package org.example.cache;
+
+import jakarta.persistence.EntityManager;
+import org.example.entities.Product;
+import org.hibernate.Session;
+
+// Finds products by their natural ID (the name) instead of "select p from Product p where p.name = :name".
+//
+// The JPQL query always goes to the database (or the query cache, which is invalidated by every write to the
+// product table). A natural ID load first resolves name -> id in the "product-natural-id" region and then
+// loads the entity from the "product" region, so a hot name costs no SQL at all.
+// Both regions show up in SecondLevelCacheStats with their hit ratio.
+//
+// Example:
+//    Product product = ProductLookup.findByName(entityManager, "Laptop");
+public final class ProductLookup {
+
+    private ProductLookup() {
+    }
+
+    // Null when there is no product with this name.
+    public static Product findByName(EntityManager entityManager, String name) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Product.class).load(name);
+    }
+}
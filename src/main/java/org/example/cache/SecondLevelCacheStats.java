@@ -0,0 +1,92 @@
+package org.example.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Hit, miss, put and eviction counters of every second-level cache region.
+//
+// Hits, misses and puts are counted by Hibernate, which only happens with hibernate.generate_statistics=true
+// (off by default). Evictions happen inside the cache provider, so they are read from the JCache statistics
+// MBean of the factory's own cache manager (enable-statistics in ehcache.xml).
+//
+// Example:
+//    SecondLevelCacheStats.of(entityManagerFactory).forEach(System.out::println);
+public final class SecondLevelCacheStats {
+
+    // "evictions" and "entries" are -1 when the cache provider does not report them.
+    public record RegionStats(String region, long hits, long misses, long puts, long evictions, long entries) {
+
+        public double hitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: hits=%d misses=%d hitRatio=%.2f puts=%d evictions=%d entries=%d",
+                    region, hits, misses, hitRatio(), puts, evictions, entries);
+        }
+    }
+
+    private SecondLevelCacheStats() {
+    }
+
+    public static List<RegionStats> of(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            throw new IllegalStateException("Cache statistics need hibernate.generate_statistics=true");
+        }
+        String cacheManager = cacheManagerUri(entityManagerFactory);
+        List<RegionStats> regions = new ArrayList<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics != null) {
+                regions.add(new RegionStats(region, regionStatistics.getHitCount(), regionStatistics.getMissCount(),
+                        regionStatistics.getPutCount(), evictions(cacheManager, region), Math.max(-1, regionStatistics.getElementCountInMemory())));
+            }
+        }
+        return regions;
+    }
+
+    // Null when the region factory is not JCache.
+    private static String cacheManagerUri(EntityManagerFactory entityManagerFactory) {
+        RegionFactory regionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory();
+        return regionFactory instanceof JCacheRegionFactory jcache ? jcache.getCacheManager().getURI().toString() : null;
+    }
+
+    // -1 when the provider does not publish statistics for the region.
+    private static long evictions(String cacheManager, String region) {
+        if (cacheManager == null) {
+            return -1;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            // JCache providers replace characters that are not allowed in an ObjectName value with '.'
+            Set<ObjectName> names = server.queryNames(new ObjectName("javax.cache:type=CacheStatistics,CacheManager="
+                    + sanitize(cacheManager) + ",Cache=" + sanitize(region)), null);
+            long evictions = 0;
+            for (ObjectName name : names) {
+                evictions += ((Number) server.getAttribute(name, "CacheEvictions")).longValue();
+            }
+            return names.isEmpty() ? -1 : evictions;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static String sanitize(String value) {
+        return value.replaceAll("[,:=\n]", ".");
+    }
+}
@@ -1,16 +1,51 @@
 package org.example.entities;
 
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Entity
+// Products are read far more often than they change, so they are kept in the second-level cache
+// (the "product" region in ehcache.xml) and shared by every EntityManager.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product")
+// Products are mostly looked up by name (see ProductLookup). The name -> id resolution is cached in its own
+// region, so a repeated lookup by name is two cache hits and no SQL. The unique index behind it is named here,
+// existing databases get it with db/migration/product-name-natural-id.sql.
+@NaturalIdCache(region = "product-natural-id")
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_product_name", columnNames = "name"),
+        indexes = @Index(name = "ix_product_updated_at", columnList = "updated_at"))
 public class Product {
 
     @Id
     private Long id;
 
+    // Mutable: a product can be renamed, Hibernate then replaces the cached name -> id entry.
+    @NaturalId(mutable = true)
     private String name;
 
+    // Set on every insert and update. ProductNameSnapshot reads the rows changed since its last refresh by this
+    // column. The JVM clock is used (source = DB would re-read the row after every write); the snapshot reads with
+    // an overlap that covers clock differences between nodes and transactions that commit late.
+    // Plain SQL inserts get the database time from the default (CopyMapping fills the column itself); the column is
+    // NOT NULL because a row without a timestamp would never be refreshed.
+    @UpdateTimestamp
+    @ColumnDefault("current_timestamp")
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
     public Long getId() {
         return id;
     }
@@ -26,4 +61,8 @@ public class Product {
     public void setName(String name) {
         this.name = name;
     }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
 }
@@ -12,11 +12,15 @@ package org.example.entities;
 // - @Entity: Marks this class as a JPA entity, meaning it will be mapped to a database table.
 // - @Id: Defines primary key fields.
 // - @IdClass: Specifies a composite key class (StockKeys) for this entity.
+// - @Cacheable / @Cache: Keep Stock rows in the second-level cache ("stock" region in ehcache.xml).
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.IdClass;
 import org.example.entities.keys.StockKeys;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 // ----------------------------- STEP 3: DEFINE THE ENTITY CLASS -----------------------------
 
@@ -25,6 +29,8 @@ import org.example.entities.keys.StockKeys;
 
 @Entity  // This annotation tells Hibernate that this is a database entity.
 @IdClass(StockKeys.class)  // This annotation specifies that the primary key is composed of multiple fields.
+@Cacheable  // Stock lookups by (code, number) are served from the second-level cache when possible.
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "stock")
 
 public class Stock {  // The entity class begins here.
 
@@ -1,33 +1,62 @@
 package org.example.entities;
 
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
-import org.example.entities.generators.UUIDGenerator;
+import org.example.entities.generators.SignedIdentity;
+import org.example.entities.generators.TimeOrderedUuidGenerator;
 import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.UuidGenerator;
 
+import java.util.UUID;
+
 @Entity
-public class Student {
+public class Student implements SignedIdentity {
 
     @Id
-    @GenericGenerator(name = "UUIDGENERATOR", type = UUIDGenerator.class)
+    // The key is a time-ordered UUID, stored in a native 16-byte "uuid" column. New rows are appended at the end of
+    // the primary key index instead of at random places, the way the old "<uuid>-<tag>" varchar (~137 bytes) was.
+    // The signature lives in its own column and can be checked with
+    // new SignedIdVerifier(SignatureAlgorithm.HMAC_SHA256).verify(student.getId(), student.getIdSignature()).
+    // Existing tables are converted with db/migration/student-compact-id.sql.
+    //
+    // Another algorithm can be selected, or signing turned off:
+    // @GenericGenerator(name = "UUIDGENERATOR", type = TimeOrderedUuidGenerator.class, parameters = {
+    //         @Parameter(name = TimeOrderedUuidGenerator.ALGORITHM_PARAM, value = "NONE")})
+    //
+    // The old text ID is still available with a String id and:
+    // @GenericGenerator(name = "UUIDGENERATOR", type = UUIDGenerator.class)
+    @GenericGenerator(name = "UUIDGENERATOR", type = TimeOrderedUuidGenerator.class)
     @GeneratedValue(generator = "UUIDGENERATOR")
-    private String id;
+    private UUID id;
+
+    // 32 bytes for HMAC_SHA256, 64 for ED25519, 256 for RSA
+    @Column(name = "id_signature", length = 256)
+    private byte[] idSignature;
 
     private String name;
     private String address;
 
 
-    public String getId() {
+    public UUID getId() {
         return id;
     }
 
-    public void setId(String id) {
+    public void setId(UUID id) {
         this.id = id;
     }
 
+    public byte[] getIdSignature() {
+        return idSignature;
+    }
+
+    @Override
+    public void setIdSignature(byte[] idSignature) {
+        this.idSignature = idSignature;
+    }
+
     public String getName() {
         return name;
     }
@@ -0,0 +1,68 @@
+package org.example.entities.generators;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters of one PooledSequenceGenerator sequence.
+// "allocations" is the number of sequence round trips; ideally it is idsHandedOut / blockSize.
+public class AllocationStats {
+
+    private final String sequenceName;
+    private final int blockSize;
+
+    final LongAdder allocations = new LongAdder();
+    final LongAdder allocationNanos = new LongAdder();
+    final LongAccumulator maxAllocationNanos = new LongAccumulator(Math::max, 0);
+    final LongAdder idsHandedOut = new LongAdder();
+    final LongAdder refillWaits = new LongAdder();
+
+    AllocationStats(String sequenceName, int blockSize) {
+        this.sequenceName = sequenceName;
+        this.blockSize = blockSize;
+    }
+
+    void recordAllocation(long elapsedNanos) {
+        allocations.increment();
+        allocationNanos.add(elapsedNanos);
+        maxAllocationNanos.accumulate(elapsedNanos);
+    }
+
+    public String getSequenceName() {
+        return sequenceName;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public long getAllocations() {
+        return allocations.sum();
+    }
+
+    public long getIdsHandedOut() {
+        return idsHandedOut.sum();
+    }
+
+    // How often a thread found the block used up while another thread was already reserving the next one,
+    // and waited for it instead of making its own sequence call.
+    public long getRefillWaits() {
+        return refillWaits.sum();
+    }
+
+    public double getAverageAllocationMicros() {
+        long count = allocations.sum();
+        return count == 0 ? 0 : allocationNanos.sum() / 1_000.0 / count;
+    }
+
+    public long getMaxAllocationMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxAllocationNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: blockSize=%d allocations=%d ids=%d refillWaits=%d avgAllocation=%.1fus maxAllocation=%dus",
+                sequenceName, blockSize, getAllocations(), getIdsHandedOut(), getRefillWaits(),
+                getAverageAllocationMicros(), getMaxAllocationMicros());
+    }
+}
@@ -0,0 +1,164 @@
+package org.example.entities.generators;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Produces "<uuid>-<tag>" identifiers for one SignatureAlgorithm.
+//
+// The expensive parts of signing are done once instead of on every ID:
+//  - The key material is generated once per algorithm and shared (like the original static keyPair).
+//  - Every thread keeps its own initialised Signature / Mac and SecureRandom, so there is no
+//    Signature.getInstance() + initSign() per call and no contention on a shared random generator.
+public final class IdSigner {
+
+    static final int UUID_LENGTH = 36;
+    static final int MAX_TAG_LENGTH = 100;
+
+    private static final Map<SignatureAlgorithm, IdSigner> SIGNERS = new ConcurrentHashMap<>();
+
+    private final SignatureAlgorithm algorithm;
+    private final KeyPair keyPair;      // RSA and ED25519
+    private final SecretKey secretKey;  // HMAC_SHA256
+    private final ThreadLocal<TagFunction> tagFunctions = ThreadLocal.withInitial(this::newTagFunction);
+    private final ThreadLocal<SecureRandom> randoms = ThreadLocal.withInitial(SecureRandom::new);
+
+    private IdSigner(SignatureAlgorithm algorithm) {
+        this.algorithm = algorithm;
+        try {
+            if (algorithm.isSymmetric()) {
+                this.keyPair = null;
+                this.secretKey = KeyGenerator.getInstance(algorithm.getKeyAlgorithm()).generateKey();
+            } else {
+                KeyPairGenerator keyGen = KeyPairGenerator.getInstance(algorithm.getKeyAlgorithm());
+                if (algorithm == SignatureAlgorithm.RSA) {
+                    keyGen.initialize(2048);
+                }
+                this.keyPair = keyGen.generateKeyPair();
+                this.secretKey = null;
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error generating key for " + algorithm, e);
+        }
+    }
+
+    // One signer (and therefore one key) per algorithm for the whole JVM.
+    public static IdSigner forAlgorithm(SignatureAlgorithm algorithm) {
+        return SIGNERS.computeIfAbsent(algorithm, IdSigner::new);
+    }
+
+    public SignatureAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public String newId() {
+        String uuid = randomUuid().toString();
+        return uuid + "-" + sign(uuid);
+    }
+
+    public String sign(String uuid) {
+        try {
+            byte[] tag = tagFunctions.get().apply(uuid.getBytes(StandardCharsets.UTF_8));
+            String signedString = Base64.getEncoder().encodeToString(tag);
+
+            // Truncate if longer than 100 characters (only RSA signatures are that long)
+            return signedString.length() > MAX_TAG_LENGTH ? signedString.substring(0, MAX_TAG_LENGTH) : signedString;
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Error while signing UUID", e);
+        }
+    }
+
+    // The complete, untruncated tag as bytes, for the compact binary format (see TimeOrderedUuidGenerator).
+    // The signed message is the same as for sign(), the UUID in its text form.
+    public byte[] signBytes(UUID uuid) {
+        try {
+            return tagFunctions.get().apply(uuid.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Error while signing UUID", e);
+        }
+    }
+
+    // RSA (PKCS#1 v1.5) and HMAC tags are deterministic, so they are checked by producing the tag again.
+    // That is also the only way to check a truncated RSA tag. Ed25519 tags are complete and are checked
+    // with the public key.
+    boolean verify(String uuid, String tag) {
+        if (algorithm != SignatureAlgorithm.ED25519) {
+            return MessageDigest.isEqual(sign(uuid).getBytes(StandardCharsets.US_ASCII),
+                    tag.getBytes(StandardCharsets.US_ASCII));
+        }
+        try {
+            return verifyWithPublicKey(uuid, Base64.getDecoder().decode(tag));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    boolean verifyBytes(UUID uuid, byte[] tag) {
+        if (algorithm != SignatureAlgorithm.ED25519) {
+            return MessageDigest.isEqual(signBytes(uuid), tag);
+        }
+        return verifyWithPublicKey(uuid.toString(), tag);
+    }
+
+    private boolean verifyWithPublicKey(String uuid, byte[] tag) {
+        try {
+            Signature verifier = Signature.getInstance(algorithm.getJcaName());
+            verifier.initVerify(keyPair.getPublic());
+            verifier.update(uuid.getBytes(StandardCharsets.UTF_8));
+            return verifier.verify(tag);
+        } catch (SignatureException e) {
+            return false;
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Error while verifying UUID", e);
+        }
+    }
+
+    public PublicKey getPublicKey() {
+        return keyPair != null ? keyPair.getPublic() : null;
+    }
+
+    // Same layout as UUID.randomUUID() (version 4, IETF variant) but drawn from a per-thread SecureRandom.
+    private UUID randomUuid() {
+        byte[] bytes = new byte[16];
+        randoms.get().nextBytes(bytes);
+        bytes[6] = (byte) ((bytes[6] & 0x0f) | 0x40);
+        bytes[8] = (byte) ((bytes[8] & 0x3f) | 0x80);
+
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = (msb << 8) | (bytes[i] & 0xff);
+            lsb = (lsb << 8) | (bytes[i + 8] & 0xff);
+        }
+        return new UUID(msb, lsb);
+    }
+
+    private TagFunction newTagFunction() {
+        try {
+            if (algorithm.isSymmetric()) {
+                Mac mac = Mac.getInstance(algorithm.getJcaName());
+                mac.init(secretKey);
+                return mac::doFinal; // doFinal() resets the Mac for the next call
+            }
+            Signature signature = Signature.getInstance(algorithm.getJcaName());
+            signature.initSign(keyPair.getPrivate());
+            return data -> {
+                signature.update(data);
+                return signature.sign(); // sign() resets the Signature for the next call
+            };
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Error initialising " + algorithm, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface TagFunction {
+        byte[] apply(byte[] data) throws GeneralSecurityException;
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.entities.generators;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.boot.model.naming.Identifier;
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.QualifiedSequenceName;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.jdbc.env.spi.JdbcEnvironment;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Hands out long IDs from blocks reserved with a single sequence call.
+//
+// The database sequence is created with "INCREMENT BY <block-size>", so one nextval reserves a whole range:
+// nextval = 101 with a block size of 100 means the IDs 101..200 belong to this JVM. Inside a block an ID is just
+// an AtomicLong increment, no lock and no database round trip, and JDBC insert batching keeps working.
+// When the block runs out, one thread reserves the next one while the others wait for it, so every block
+// costs exactly one sequence call and no IDs are thrown away.
+//
+// The increment of the sequence must equal the block size, otherwise the blocks of two nextval calls overlap.
+// Before the first block is reserved the generator reads the increment from information_schema.sequences and
+// refuses to hand out IDs if it differs. Do not reuse a sequence created for another generator (Hibernate's
+// "<entity>_SEQ" has INCREMENT BY 50), see db/migration/employee-id-block-sequence.sql.
+//
+// Parameters:
+//    sequence:    Name of the database sequence (created by hbm2ddl).
+//    block-size:  How many IDs one sequence call reserves. Default 100.
+//
+// Example:
+//    @GeneratedValue(generator = "EMPLOYEE_SEQUENCE")
+//    @GenericGenerator(name = "EMPLOYEE_SEQUENCE", type = PooledSequenceGenerator.class, parameters = {
+//            @Parameter(name = PooledSequenceGenerator.SEQUENCE_PARAM, value = "employee_id_block_seq"),
+//            @Parameter(name = PooledSequenceGenerator.BLOCK_SIZE_PARAM, value = "100")})
+public class PooledSequenceGenerator implements IdentifierGenerator {
+
+    public static final String SEQUENCE_PARAM = "sequence";
+    public static final String BLOCK_SIZE_PARAM = "block-size";
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
+    private static final Map<String, AllocationStats> STATS = new ConcurrentHashMap<>();
+
+    private String sequenceName;
+    private int blockSize;
+    private Dialect dialect;
+    private QualifiedSequenceName qualifiedName;
+    private String nextValueSql;
+    private AllocationStats stats;
+
+    // The block that is currently being handed out. Starts exhausted so the first call reserves a block.
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+    private final ReentrantLock refill = new ReentrantLock();
+    // Guarded by refill.
+    private boolean incrementChecked;
+
+    // Allocation statistics of a sequence, e.g. PooledSequenceGenerator.getStats("employee_id_block_seq").
+    public static AllocationStats getStats(String sequenceName) {
+        return STATS.get(sequenceName);
+    }
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        sequenceName = params.getProperty(SEQUENCE_PARAM);
+        if (sequenceName == null || sequenceName.isBlank()) {
+            throw new MappingException("PooledSequenceGenerator requires the '" + SEQUENCE_PARAM + "' parameter");
+        }
+        blockSize = Integer.parseInt(params.getProperty(BLOCK_SIZE_PARAM, String.valueOf(DEFAULT_BLOCK_SIZE)));
+        if (blockSize <= 0) {
+            throw new MappingException("block-size must be positive: " + blockSize);
+        }
+        dialect = serviceRegistry.getService(JdbcEnvironment.class).getDialect();
+        stats = STATS.computeIfAbsent(sequenceName, name -> new AllocationStats(name, blockSize));
+    }
+
+    // Lets hbm2ddl create the sequence with the block size as its increment.
+    @Override
+    public void registerExportables(Database database) {
+        Namespace namespace = database.getDefaultNamespace();
+        Identifier name = Identifier.toIdentifier(sequenceName);
+        Sequence sequence = namespace.locateSequence(name);
+        if (sequence == null) {
+            sequence = namespace.createSequence(name, physicalName -> new Sequence(null,
+                    namespace.getPhysicalName().getCatalog(), namespace.getPhysicalName().getSchema(), physicalName, 1, blockSize));
+        }
+        qualifiedName = sequence.getName();
+    }
+
+    @Override
+    public void initialize(SqlStringGenerationContext context) {
+        nextValueSql = dialect.getSequenceSupport().getSequenceNextValString(context.format(qualifiedName));
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        while (true) {
+            Block block = current.get();
+            long id = block.next.getAndIncrement();
+            if (id < block.end) {
+                stats.idsHandedOut.increment();
+                return id;
+            }
+
+            // The block is used up. Only the thread holding the lock reserves a new one; a thread that finds
+            // another block installed once it gets the lock takes its ID from that one.
+            refill.lock();
+            try {
+                Block latest = current.get();
+                if (latest != block) {
+                    stats.refillWaits.increment();
+                    continue;
+                }
+                if (!incrementChecked) {
+                    checkIncrement(session);
+                    incrementChecked = true;
+                }
+                Block reserved = reserveBlock(session);
+                id = reserved.next.getAndIncrement();
+                current.set(reserved);
+            } finally {
+                refill.unlock();
+            }
+            stats.idsHandedOut.increment();
+            return id;
+        }
+    }
+
+    private Block reserveBlock(SharedSessionContractImplementor session) {
+        long start = System.nanoTime();
+        JdbcCoordinator jdbcCoordinator = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbcCoordinator.getStatementPreparer().prepareStatement(nextValueSql);
+        try {
+            ResultSet resultSet = jdbcCoordinator.getResultSetReturn().extract(statement, nextValueSql);
+            try {
+                resultSet.next();
+                long first = resultSet.getLong(1);
+                stats.recordAllocation(System.nanoTime() - start);
+                return new Block(first, first + blockSize);
+            } finally {
+                jdbcCoordinator.getLogicalConnection().getResourceRegistry().release(resultSet, statement);
+            }
+        } catch (SQLException e) {
+            throw new HibernateException("Error reserving a block from sequence " + sequenceName, e);
+        } finally {
+            jdbcCoordinator.getLogicalConnection().getResourceRegistry().release(statement);
+            jdbcCoordinator.afterStatementExecution();
+        }
+    }
+
+    // Generators get no connection while the session factory is built, so this runs with the first reservation.
+    private void checkIncrement(SharedSessionContractImplementor session) {
+        String schema = qualifiedName.getSchemaName() != null ? qualifiedName.getSchemaName().getText() : null;
+        String sql = "select increment from information_schema.sequences where upper(sequence_name) = upper(?)"
+                + " and upper(sequence_schema) = upper(" + (schema != null ? "?" : "current_schema") + ")";
+        JdbcCoordinator jdbcCoordinator = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbcCoordinator.getStatementPreparer().prepareStatement(sql);
+        try {
+            statement.setString(1, qualifiedName.getSequenceName().getText());
+            if (schema != null) {
+                statement.setString(2, schema);
+            }
+            ResultSet resultSet = jdbcCoordinator.getResultSetReturn().extract(statement, sql);
+            try {
+                if (!resultSet.next()) {
+                    throw new HibernateException("Sequence " + sequenceName + " not found in information_schema.sequences");
+                }
+                // PostgreSQL reports the increment as text, H2 as a number.
+                long increment = Long.parseLong(resultSet.getString(1).trim());
+                if (increment != blockSize) {
+                    throw new HibernateException("Sequence " + sequenceName + " has INCREMENT BY " + increment
+                            + " but the block size is " + blockSize + "; the ID blocks would overlap."
+                            + " Alter the sequence or use another one.");
+                }
+            } finally {
+                jdbcCoordinator.getLogicalConnection().getResourceRegistry().release(resultSet, statement);
+            }
+        } catch (SQLException e) {
+            throw new HibernateException("Error reading the increment of sequence " + sequenceName, e);
+        } finally {
+            jdbcCoordinator.getLogicalConnection().getResourceRegistry().release(statement);
+            jdbcCoordinator.afterStatementExecution();
+        }
+    }
+
+    private static final class Block {
+        final AtomicLong next;
+        final long end; // exclusive
+
+        Block(long first, long end) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.entities.generators;
+
+// The algorithms UUIDGenerator can use to tag a UUID.
+// Every ID has the same shape: "<uuid>-<Base64 tag>", only the cost of producing the tag changes.
+//
+//    RSA:          SHA256withRSA with a 2048-bit key. The original behaviour, slow (a private-key operation per ID)
+//                  and the 344-character signature is truncated to 100 characters.
+//    ED25519:      Ed25519 signature (64 bytes, 88 Base64 characters). Much cheaper than RSA and verifiable with
+//                  the public key alone because it fits without truncation.
+//    HMAC_SHA256:  Keyed hash with a secret key (32 bytes, 44 Base64 characters). The fastest option; verifying
+//                  requires the same secret key.
+public enum SignatureAlgorithm {
+
+    RSA("SHA256withRSA", "RSA"),
+    ED25519("Ed25519", "Ed25519"),
+    HMAC_SHA256("HmacSHA256", "HmacSHA256");
+
+    private final String jcaName;
+    private final String keyAlgorithm;
+
+    SignatureAlgorithm(String jcaName, String keyAlgorithm) {
+        this.jcaName = jcaName;
+        this.keyAlgorithm = keyAlgorithm;
+    }
+
+    public String getJcaName() {
+        return jcaName;
+    }
+
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    public boolean isSymmetric() {
+        return this == HMAC_SHA256;
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.entities.generators;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A lock-free pool of pre-generated IDs.
+// A background thread keeps the pool filled, so an insert usually just takes a ready ID from the queue.
+// When the pool runs dry the ID is generated on the calling thread, so take() never blocks.
+public final class SignedIdPool implements AutoCloseable {
+
+    private final IdSigner signer;
+    private final int capacity;
+    private final ConcurrentLinkedQueue<String> ids = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private final ExecutorService filler;
+
+    public SignedIdPool(IdSigner signer, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.signer = signer;
+        this.capacity = capacity;
+        this.filler = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "signed-id-pool-" + signer.getAlgorithm());
+            thread.setDaemon(true); // never keeps the JVM alive
+            return thread;
+        });
+        requestRefill();
+    }
+
+    public String take() {
+        String id = ids.poll();
+        if (id != null) {
+            size.decrementAndGet();
+        }
+        // Refill once the pool is half empty.
+        if (size.get() < capacity / 2) {
+            requestRefill();
+        }
+        return id != null ? id : signer.newId();
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    private void requestRefill() {
+        if (refilling.compareAndSet(false, true) && !filler.isShutdown()) {
+            filler.execute(this::refill);
+        }
+    }
+
+    private void refill() {
+        try {
+            while (size.get() < capacity && !filler.isShutdown()) {
+                ids.offer(signer.newId());
+                size.incrementAndGet();
+            }
+        } finally {
+            refilling.set(false);
+        }
+    }
+
+    @Override
+    public void close() {
+        filler.shutdownNow();
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.entities.generators;
+
+import java.util.UUID;
+
+// Checks that an ID produced by UUIDGenerator carries a valid tag.
+//
+// The keys live only in memory (see IdSigner), so an ID can only be verified in the JVM that generated it.
+//
+// Example:
+//    SignedIdVerifier verifier = new SignedIdVerifier(SignatureAlgorithm.HMAC_SHA256);
+//    boolean valid = verifier.verify(student.getId(), student.getIdSignature());
+public final class SignedIdVerifier {
+
+    private final IdSigner signer;
+
+    public SignedIdVerifier(SignatureAlgorithm algorithm) {
+        this.signer = IdSigner.forAlgorithm(algorithm);
+    }
+
+    public boolean verify(String id) {
+        // "<36-character uuid>-<tag>"
+        if (id == null || id.length() <= IdSigner.UUID_LENGTH + 1 || id.charAt(IdSigner.UUID_LENGTH) != '-') {
+            return false;
+        }
+        String uuid = id.substring(0, IdSigner.UUID_LENGTH);
+        String tag = id.substring(IdSigner.UUID_LENGTH + 1);
+        return signer.verify(uuid, tag);
+    }
+
+    // For the compact format: a UUID key with its signature in a separate binary column.
+    public boolean verify(UUID id, byte[] signature) {
+        return id != null && signature != null && signer.verifyBytes(id, signature);
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.entities.generators;
+
+// Implemented by entities whose UUID key is signed by TimeOrderedUuidGenerator.
+// The generator stores the signature through this method when it assigns the ID.
+public interface SignedIdentity {
+
+    void setIdSignature(byte[] signature);
+}
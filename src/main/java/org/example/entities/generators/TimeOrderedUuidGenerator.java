@@ -0,0 +1,61 @@
+package org.example.entities.generators;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.security.SecureRandom;
+import java.util.Properties;
+import java.util.UUID;
+
+// Generates time-ordered UUIDs (version 7) for a java.util.UUID primary key.
+//
+// The first 48 bits are the current time in milliseconds, the rest is random. New keys therefore always land at
+// the right edge of the primary key B-tree instead of at a random page, which keeps inserts local and the index
+// compact. The key is stored as a native 16-byte "uuid" column instead of a ~137 character varchar.
+//
+// The signature that UUIDGenerator appends to the text ID is kept separately: when the entity implements
+// SignedIdentity it receives the complete signature as bytes (32 bytes for HMAC_SHA256, 64 for Ed25519).
+//
+// Parameters:
+//    algorithm:  RSA, ED25519, HMAC_SHA256 (default) or NONE for an unsigned key.
+public class TimeOrderedUuidGenerator implements IdentifierGenerator {
+
+    public static final String ALGORITHM_PARAM = "algorithm";
+
+    private static final ThreadLocal<SecureRandom> RANDOMS = ThreadLocal.withInitial(SecureRandom::new);
+
+    // Created in configure(), null for NONE.
+    private IdSigner signer;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        String algorithm = params.getProperty(ALGORITHM_PARAM, SignatureAlgorithm.HMAC_SHA256.name()).trim().toUpperCase();
+        try {
+            signer = algorithm.equals("NONE") ? null : IdSigner.forAlgorithm(SignatureAlgorithm.valueOf(algorithm));
+        } catch (IllegalArgumentException e) {
+            throw new MappingException("Unknown TimeOrderedUuidGenerator algorithm: " + algorithm, e);
+        }
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        UUID id = newUuid();
+        if (signer != null && object instanceof SignedIdentity signed) {
+            signed.setIdSignature(signer.signBytes(id));
+        }
+        return id;
+    }
+
+    // Layout (RFC 9562): 48 bits unix milliseconds, 4 bits version (7), 12 random bits,
+    // 2 bits variant, 62 random bits.
+    public static UUID newUuid() {
+        SecureRandom random = RANDOMS.get();
+        long millis = System.currentTimeMillis();
+        long msb = (millis << 16) | 0x7000L | (random.nextInt() & 0x0fffL);
+        long lsb = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
@@ -1,12 +1,15 @@
 package org.example.entities.generators;
 
+import org.hibernate.MappingException;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
 
-import java.nio.charset.StandardCharsets;
-import java.security.*;
-import java.util.Base64;
-import java.util.UUID;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class UUIDGenerator implements IdentifierGenerator {
 
@@ -30,39 +33,57 @@ public class UUIDGenerator implements IdentifierGenerator {
 //
 //    This means that every time 'generate()' is called, a unique string-based ID will be returned.
 
-    private static final KeyPair keyPair = generateKeyPair();  // Generate a key pair once
+    // The generator can be configured through @GenericGenerator parameters:
+    //    algorithm:  RSA (default, the original behaviour), ED25519 or HMAC_SHA256. See SignatureAlgorithm.
+    //    pool-size:  When greater than 0, IDs are pre-generated into a pool of this size by a background thread.
+    //
+    // Example:
+    //    @GenericGenerator(name = "UUIDGENERATOR", type = UUIDGenerator.class, parameters = {
+    //            @Parameter(name = UUIDGenerator.ALGORITHM_PARAM, value = "HMAC_SHA256"),
+    //            @Parameter(name = UUIDGenerator.POOL_SIZE_PARAM, value = "1024")})
+    public static final String ALGORITHM_PARAM = "algorithm";
+    public static final String POOL_SIZE_PARAM = "pool-size";
+
+    // Both are created in configure(), so only the configured algorithm generates its keys.
+    private IdSigner signer;
+    private SignedIdPool pool;
+    private final AtomicBoolean poolCloseRegistered = new AtomicBoolean();
 
     @Override
-    public Object generate(SharedSessionContractImplementor sharedSessionContractImplementor, Object o) {
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        String algorithm = params.getProperty(ALGORITHM_PARAM, SignatureAlgorithm.RSA.name());
+        String poolSizeValue = params.getProperty(POOL_SIZE_PARAM, "0");
+        int poolSize;
         try {
-            String uuid = UUID.randomUUID().toString();
-            return uuid + "-" + sign(uuid);
-        } catch (NoSuchAlgorithmException | InvalidKeyException | SignatureException e) {
-            throw new RuntimeException("Error while signing UUID", e);
+            poolSize = Integer.parseInt(poolSizeValue.trim());
+        } catch (NumberFormatException e) {
+            throw new MappingException("UUIDGenerator " + POOL_SIZE_PARAM + " is not a number: " + poolSizeValue, e);
         }
-    }
-
-    private static KeyPair generateKeyPair() {
         try {
-            KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
-            keyGen.initialize(2048);
-            return keyGen.generateKeyPair();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Error generating key pair", e);
+            signer = IdSigner.forAlgorithm(SignatureAlgorithm.valueOf(algorithm.trim().toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            throw new MappingException("Unknown UUIDGenerator algorithm: " + algorithm, e);
         }
+        pool = poolSize > 0 ? new SignedIdPool(signer, poolSize) : null;
     }
 
-    private String sign(String primaryKeyValue) throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
-        PrivateKey privateKey = keyPair.getPrivate();
-        Signature signature = Signature.getInstance("SHA256withRSA");
-        signature.initSign(privateKey);
-        signature.update(primaryKeyValue.getBytes(StandardCharsets.UTF_8));
-
-        byte[] signedData = signature.sign();
-        String signedString = Base64.getEncoder().encodeToString(signedData);
-
-        // Truncate if longer than 100 characters
-        return signedString.length() > 100 ? signedString.substring(0, 100) : signedString;
+    @Override
+    public Object generate(SharedSessionContractImplementor sharedSessionContractImplementor, Object o) {
+        if (pool == null) {
+            return signer.newId();
+        }
+        // Generators have no close callback, so the filler thread is stopped together with the session factory
+        // of the first session that takes an ID.
+        if (poolCloseRegistered.compareAndSet(false, true)) {
+            SignedIdPool closing = pool;
+            sharedSessionContractImplementor.getFactory().addObserver(new SessionFactoryObserver() {
+                @Override
+                public void sessionFactoryClosed(SessionFactory factory) {
+                    closing.close();
+                }
+            });
+        }
+        return pool.take();
     }
 
 }
\ No newline at end of file
@@ -1,12 +1,23 @@
 package org.example.entities.keys;
 
 import java.io.Serializable;
+import java.util.Objects;
 
+// Composite primary key of Stock (@IdClass). Hibernate uses it as the key of the persistence context and of the
+// second-level cache, and StockLookup uses it as a map key, so equality must be based on (code, number).
 public class StockKeys implements Serializable {
 
     private String code;
     private long number;
 
+    public StockKeys() {
+    }
+
+    public StockKeys(String code, long number) {
+        this.code = code;
+        this.number = number;
+    }
+
     public String getCode() {
         return code;
     }
@@ -22,4 +33,25 @@ public class StockKeys implements Serializable {
     public void setNumber(long number) {
         this.number = number;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StockKeys other)) {
+            return false;
+        }
+        return number == other.number && Objects.equals(code, other.code);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(code) + Long.hashCode(number);
+    }
+
+    @Override
+    public String toString() {
+        return code + "/" + number;
+    }
 }
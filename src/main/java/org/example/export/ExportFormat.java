@@ -0,0 +1,92 @@
+package org.example.export;
+
+import java.util.Base64;
+import java.util.List;
+
+// The file formats the StreamingExporter can write. Both are line based, so a row can be written
+// as soon as it is read and nothing has to be kept in memory.
+public enum ExportFormat {
+
+    // Header line with the column names, then one comma separated line per row. Null is an empty field.
+    // Binary values (Student's id_signature) are written as Base64 in both formats.
+    // Text is always quoted, line breaks inside it are kept (valid CSV: a reader must track the quotes to find
+    // the end of a row, as StockImporter does).
+    CSV {
+        @Override
+        void appendHeader(List<String> columns, StringBuilder out) {
+            out.append(String.join(",", columns)).append('\n');
+        }
+
+        @Override
+        void appendRow(List<String> columns, Object[] values, StringBuilder out) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                Object value = values[i];
+                if (value instanceof Number || value instanceof Boolean) {
+                    out.append(value);
+                } else if (value instanceof byte[] bytes) {
+                    out.append(Base64.getEncoder().encodeToString(bytes));
+                } else if (value != null) {
+                    out.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+                }
+            }
+            out.append('\n');
+        }
+    },
+
+    // One JSON object per line: {"id":1,"name":"...","address":null}
+    NDJSON {
+        @Override
+        void appendHeader(List<String> columns, StringBuilder out) {
+        }
+
+        @Override
+        void appendRow(List<String> columns, Object[] values, StringBuilder out) {
+            out.append('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                appendJsonString(columns.get(i), out);
+                out.append(':');
+                Object value = values[i];
+                if (value == null || value instanceof Number || value instanceof Boolean) {
+                    out.append(value);
+                } else if (value instanceof byte[] bytes) {
+                    appendJsonString(Base64.getEncoder().encodeToString(bytes), out);
+                } else {
+                    appendJsonString(value.toString(), out);
+                }
+            }
+            out.append("}\n");
+        }
+    };
+
+    abstract void appendHeader(List<String> columns, StringBuilder out);
+
+    abstract void appendRow(List<String> columns, Object[] values, StringBuilder out);
+
+    private static void appendJsonString(String value, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.export;
+
+import java.util.concurrent.TimeUnit;
+
+// Result of one StreamingExporter.export() call.
+public record ExportReport(String entity, ExportFormat format, long rows, long bytes, long elapsedNanos) {
+
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s as %s: %d rows, %d bytes in %.1f ms (%.0f rows/s)",
+                entity, format, rows, bytes, elapsedNanos / 1_000_000.0, rowsPerSecond());
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.export;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.bulk.CopyMapping;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Exports a whole table to CSV or NDJSON with constant memory use.
+//
+// A plain getResultList() loads every row into the persistence context at once. Here instead:
+//  - the rows are read with a forward-only cursor, fetchSize rows per database round trip,
+//  - every row is written to the channel as soon as it is read,
+//  - the persistence context is cleared every detachEvery rows, so already written entities can be collected,
+//  - the entities are read-only (no dirty-check snapshot) and bypass the second-level cache.
+//
+// Example:
+//    StreamingExporter exporter = new StreamingExporter(entityManagerFactory, 500, 1000);
+//    ExportReport report = exporter.export(Employee.class, ExportFormat.NDJSON, Path.of("employees.ndjson"));
+public class StreamingExporter {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final int fetchSize;
+    private final int detachEvery;
+    private Consumer<ExportReport> progressListener = report -> { };
+
+    public StreamingExporter(EntityManagerFactory entityManagerFactory, int fetchSize, int detachEvery) {
+        if (fetchSize <= 0 || detachEvery <= 0) {
+            throw new IllegalArgumentException("fetchSize and detachEvery must be positive");
+        }
+        this.entityManagerFactory = entityManagerFactory;
+        this.fetchSize = fetchSize;
+        this.detachEvery = detachEvery;
+    }
+
+    // Called with the running totals every time the persistence context is cleared.
+    public void setProgressListener(Consumer<ExportReport> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public <T> ExportReport export(Class<T> entityClass, ExportFormat format, Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return export(entityClass, format, channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error exporting to " + file, e);
+        }
+    }
+
+    public <T> ExportReport export(Class<T> entityClass, ExportFormat format, WritableByteChannel channel) {
+        CopyMapping<T> mapping = CopyMapping.forEntity(entityClass);
+        List<String> columns = mapping.getColumns();
+        long start = System.nanoTime();
+        long rows = 0;
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        ChannelWriter writer = new ChannelWriter(channel);
+        try {
+            Session session = entityManager.unwrap(Session.class);
+            session.setDefaultReadOnly(true);
+            session.setCacheMode(CacheMode.IGNORE);
+            String entityName = entityManager.getMetamodel().entity(entityClass).getName();
+
+            // PostgreSQL only honours the fetch size inside a transaction (autocommit off),
+            // otherwise the driver reads the whole result before returning the first row.
+            entityManager.getTransaction().begin();
+
+            StringBuilder line = new StringBuilder(256);
+            format.appendHeader(columns, line);
+            writer.write(line);
+
+            try (ScrollableResults<T> results = session.createQuery("select e from " + entityName + " e", entityClass)
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (results.next()) {
+                    line.setLength(0);
+                    format.appendRow(columns, mapping.getValues(results.get()), line);
+                    writer.write(line);
+
+                    if (++rows % detachEvery == 0) {
+                        session.clear();
+                        progressListener.accept(new ExportReport(entityName, format, rows,
+                                writer.getBytesWritten(), System.nanoTime() - start));
+                    }
+                }
+            }
+            writer.close();
+            entityManager.getTransaction().commit();
+            return new ExportReport(entityName, format, rows, writer.getBytesWritten(), System.nanoTime() - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing export", e);
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+        }
+    }
+}
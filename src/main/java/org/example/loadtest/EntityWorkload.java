@@ -0,0 +1,293 @@
+package org.example.loadtest;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.cache.ProductLookup;
+import org.example.entities.Employee;
+import org.example.entities.Product;
+import org.example.entities.Stock;
+import org.example.entities.Student;
+import org.example.entities.keys.StockKeys;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// The four operations for one entity, each as its own unit of work (EntityManager + transaction for writes),
+// the way Main uses the EntityManager.
+abstract class EntityWorkload<K> {
+
+    // Unique per run, so concurrent clients and repeated runs against the same database never collide.
+    private static final String RUN = Long.toString(System.currentTimeMillis(), 36);
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    protected final KeyPool<K> keys = new KeyPool<>();
+    private final String name;
+
+    EntityWorkload(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    static EntityWorkload<?> forName(String name) {
+        return switch (name) {
+            case "employee" -> new EmployeeWorkload();
+            case "student" -> new StudentWorkload();
+            case "stock" -> new StockWorkload();
+            case "product" -> new ProductWorkload();
+            default -> throw new IllegalArgumentException("Unknown entity in loadtest.entities: " + name);
+        };
+    }
+
+    void seed(EntityManagerFactory entityManagerFactory, int rows) {
+        for (int i = 0; i < rows; i++) {
+            write(entityManagerFactory);
+        }
+    }
+
+    // False when the operation found nothing to work on (e.g. every row was deleted).
+    boolean run(Operation operation, EntityManagerFactory entityManagerFactory) {
+        return switch (operation) {
+            case READ -> read(entityManagerFactory);
+            case WRITE -> write(entityManagerFactory);
+            case UPDATE -> update(entityManagerFactory);
+            case DELETE -> delete(entityManagerFactory);
+        };
+    }
+
+    abstract boolean read(EntityManagerFactory entityManagerFactory);
+
+    abstract boolean write(EntityManagerFactory entityManagerFactory);
+
+    abstract boolean update(EntityManagerFactory entityManagerFactory);
+
+    abstract boolean delete(EntityManagerFactory entityManagerFactory);
+
+    static String unique(String prefix) {
+        return prefix + "-" + RUN + "-" + SEQUENCE.incrementAndGet();
+    }
+
+    static <R> R inTransaction(EntityManagerFactory entityManagerFactory, Function<EntityManager, R> work) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            R result = work.apply(entityManager);
+            entityManager.getTransaction().commit();
+            return result;
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+        }
+    }
+
+    static <R> R read(EntityManagerFactory entityManagerFactory, Function<EntityManager, R> work) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return work.apply(entityManager);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    // Reads by id, updates the address, deletes by id.
+    static final class EmployeeWorkload extends EntityWorkload<Long> {
+        EmployeeWorkload() {
+            super("employee");
+        }
+
+        @Override
+        boolean read(EntityManagerFactory entityManagerFactory) {
+            Long id = keys.random();
+            return id != null && read(entityManagerFactory, entityManager -> entityManager.find(Employee.class, id)) != null;
+        }
+
+        @Override
+        boolean write(EntityManagerFactory entityManagerFactory) {
+            Employee employee = new Employee();
+            employee.setName(unique("employee"));
+            employee.setAddress("Address");
+            inTransaction(entityManagerFactory, entityManager -> {
+                entityManager.persist(employee);
+                return null;
+            });
+            keys.add(employee.getId());
+            return true;
+        }
+
+        @Override
+        boolean update(EntityManagerFactory entityManagerFactory) {
+            Long id = keys.random();
+            return id != null && inTransaction(entityManagerFactory, entityManager -> {
+                Employee employee = entityManager.find(Employee.class, id);
+                if (employee != null) {
+                    employee.setAddress(unique("address"));
+                }
+                return employee != null;
+            });
+        }
+
+        @Override
+        boolean delete(EntityManagerFactory entityManagerFactory) {
+            Long id = keys.take();
+            return id != null && inTransaction(entityManagerFactory, entityManager -> remove(entityManager, entityManager.find(Employee.class, id)));
+        }
+    }
+
+    // Like Employee, with the time-ordered UUID key.
+    static final class StudentWorkload extends EntityWorkload<UUID> {
+        StudentWorkload() {
+            super("student");
+        }
+
+        @Override
+        boolean read(EntityManagerFactory entityManagerFactory) {
+            UUID id = keys.random();
+            return id != null && read(entityManagerFactory, entityManager -> entityManager.find(Student.class, id)) != null;
+        }
+
+        @Override
+        boolean write(EntityManagerFactory entityManagerFactory) {
+            Student student = new Student();
+            student.setName(unique("student"));
+            student.setAddress("Address");
+            inTransaction(entityManagerFactory, entityManager -> {
+                entityManager.persist(student);
+                return null;
+            });
+            keys.add(student.getId());
+            return true;
+        }
+
+        @Override
+        boolean update(EntityManagerFactory entityManagerFactory) {
+            UUID id = keys.random();
+            return id != null && inTransaction(entityManagerFactory, entityManager -> {
+                Student student = entityManager.find(Student.class, id);
+                if (student != null) {
+                    student.setAddress(unique("address"));
+                }
+                return student != null;
+            });
+        }
+
+        @Override
+        boolean delete(EntityManagerFactory entityManagerFactory) {
+            UUID id = keys.take();
+            return id != null && inTransaction(entityManagerFactory, entityManager -> remove(entityManager, entityManager.find(Student.class, id)));
+        }
+    }
+
+    // Composite key, cached entity: reads are mostly second-level cache hits.
+    static final class StockWorkload extends EntityWorkload<StockKeys> {
+        StockWorkload() {
+            super("stock");
+        }
+
+        @Override
+        boolean read(EntityManagerFactory entityManagerFactory) {
+            StockKeys key = keys.random();
+            return key != null && read(entityManagerFactory, entityManager -> entityManager.find(Stock.class, key)) != null;
+        }
+
+        @Override
+        boolean write(EntityManagerFactory entityManagerFactory) {
+            Stock stock = new Stock();
+            stock.setCode(unique("stock"));
+            stock.setNumber(1);
+            stock.setColor("red");
+            inTransaction(entityManagerFactory, entityManager -> {
+                entityManager.persist(stock);
+                return null;
+            });
+            keys.add(new StockKeys(stock.getCode(), stock.getNumber()));
+            return true;
+        }
+
+        @Override
+        boolean update(EntityManagerFactory entityManagerFactory) {
+            StockKeys key = keys.random();
+            return key != null && inTransaction(entityManagerFactory, entityManager -> {
+                Stock stock = entityManager.find(Stock.class, key);
+                if (stock != null) {
+                    stock.setColor(stock.getColor().equals("red") ? "blue" : "red");
+                }
+                return stock != null;
+            });
+        }
+
+        @Override
+        boolean delete(EntityManagerFactory entityManagerFactory) {
+            StockKeys key = keys.take();
+            return key != null && inTransaction(entityManagerFactory, entityManager -> remove(entityManager, entityManager.find(Stock.class, key)));
+        }
+    }
+
+    // Read by name through the natural-ID cache, the way the application looks products up.
+    // An update renames the product, so the pool holds names and a renamed product is taken out and put back.
+    static final class ProductWorkload extends EntityWorkload<String> {
+        private static final AtomicLong IDS = new AtomicLong(System.currentTimeMillis() * 1000);
+
+        ProductWorkload() {
+            super("product");
+        }
+
+        @Override
+        boolean read(EntityManagerFactory entityManagerFactory) {
+            String name = keys.random();
+            return name != null && read(entityManagerFactory, entityManager -> ProductLookup.findByName(entityManager, name)) != null;
+        }
+
+        @Override
+        boolean write(EntityManagerFactory entityManagerFactory) {
+            Product product = new Product();
+            product.setId(IDS.incrementAndGet());
+            product.setName(unique("product"));
+            inTransaction(entityManagerFactory, entityManager -> {
+                entityManager.persist(product);
+                return null;
+            });
+            keys.add(product.getName());
+            return true;
+        }
+
+        @Override
+        boolean update(EntityManagerFactory entityManagerFactory) {
+            String name = keys.take();
+            if (name == null) {
+                return false;
+            }
+            String newName = unique("product");
+            boolean renamed = false;
+            try {
+                renamed = inTransaction(entityManagerFactory, entityManager -> {
+                    Product product = ProductLookup.findByName(entityManager, name);
+                    if (product != null) {
+                        product.setName(newName);
+                    }
+                    return product != null;
+                });
+            } finally {
+                keys.add(renamed ? newName : name);
+            }
+            return renamed;
+        }
+
+        @Override
+        boolean delete(EntityManagerFactory entityManagerFactory) {
+            String name = keys.take();
+            return name != null && inTransaction(entityManagerFactory, entityManager -> remove(entityManager, ProductLookup.findByName(entityManager, name)));
+        }
+    }
+
+    private static boolean remove(EntityManager entityManager, Object entity) {
+        if (entity != null) {
+            entityManager.remove(entity);
+        }
+        return entity != null;
+    }
+}
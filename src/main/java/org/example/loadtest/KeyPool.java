@@ -0,0 +1,40 @@
+package org.example.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// The keys of the rows that exist, so reads, updates and deletes pick rows that are there.
+// A simple lock is enough: a pick takes nanoseconds, the database operation around it milliseconds.
+final class KeyPool<K> {
+
+    private final List<K> keys = new ArrayList<>();
+
+    synchronized void add(K key) {
+        keys.add(key);
+    }
+
+    // Null when the pool is empty.
+    synchronized K random() {
+        return keys.isEmpty() ? null : keys.get(ThreadLocalRandom.current().nextInt(keys.size()));
+    }
+
+    // Takes a random key out, so no other client deletes or renames the same row. Null when empty.
+    synchronized K take() {
+        if (keys.isEmpty()) {
+            return null;
+        }
+        int index = ThreadLocalRandom.current().nextInt(keys.size());
+        K last = keys.remove(keys.size() - 1);
+        if (index == keys.size()) {
+            return last;
+        }
+        K key = keys.get(index);
+        keys.set(index, last);
+        return key;
+    }
+
+    synchronized int size() {
+        return keys.size();
+    }
+}
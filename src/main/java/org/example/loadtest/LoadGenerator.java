@@ -0,0 +1,224 @@
+package org.example.loadtest;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.metrics.LatencyHistogram;
+import org.example.persistence.CustomPersistenceUnitInfo;
+import org.example.persistence.PersistenceSettings;
+import org.hibernate.jpa.HibernatePersistenceProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Mixed-workload load test of the EntityManagerFactory built from CustomPersistenceUnitInfo.
+//
+// Every client is a thread (virtual or platform) that runs one operation after the other: it picks an entity and
+// an operation by the configured weights, runs it as its own unit of work and records the latency. The clients
+// are started evenly over the ramp-up time, so the report shows how latency develops with the load.
+//
+// Output:
+//  - every report interval: active clients, operations per second, p50 / p99 / p99.9 of that interval
+//  - at the end: per entity and operation count, throughput and p50 / p99 / p99.9 / max after the ramp-up
+// Latencies are recorded in LatencyHistogram (log-linear buckets, at most 12.5% above the real value).
+//
+// The clients run a closed loop: a slow operation delays the next one of the same client, so under overload
+// the tool shows lower throughput, not the queueing delay an open stream of requests would see.
+//
+// Settings: see LoadTestConfig. H2 is not a dependency of the application, so the default in-memory database
+// needs the benchmarks profile:
+//    mvn -Pbenchmarks compile exec:java -Dexec.mainClass=org.example.loadtest.LoadGenerator
+// Against a local PostgreSQL instead of H2:
+//    mvn compile exec:java -Dexec.mainClass=org.example.loadtest.LoadGenerator -Dloadtest.database=jpa \
+//        -Djpa.datasource.url=jdbc:postgresql://localhost:5432/loadtest -Dloadtest.clients=64 -Dloadtest.threads=platform
+public class LoadGenerator {
+
+    private static final Logger LOGGER = Logger.getLogger(LoadGenerator.class.getName());
+    private static final String H2_URL = "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1";
+    // Failures logged with their stack trace; later ones are only counted per operation and exception type.
+    private static final int LOGGED_ERRORS = 5;
+
+    private final LoadTestConfig config;
+    private final EntityManagerFactory entityManagerFactory;
+    private final List<EntityWorkload<?>> workloads = new ArrayList<>();
+    private final int[] entityWeights;
+    private final Operation[] operations;
+    private final int[] operationWeights;
+
+    private final Map<String, LatencyHistogram> steady = new ConcurrentHashMap<>();
+    private final LatencyHistogram interval = new LatencyHistogram();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, LongAdder> errorsByType = new ConcurrentHashMap<>();
+    private final AtomicInteger activeClients = new AtomicInteger();
+    private volatile boolean running = true;
+    // The summary window: operations that end between the ramp-up and the end of the test.
+    private long steadyFromNanos;
+    private long endNanos;
+
+    public LoadGenerator(LoadTestConfig config, EntityManagerFactory entityManagerFactory) {
+        this.config = config;
+        this.entityManagerFactory = entityManagerFactory;
+        this.entityWeights = new int[config.entities().size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entity : config.entities().entrySet()) {
+            workloads.add(EntityWorkload.forName(entity.getKey()));
+            entityWeights[i++] = entity.getValue();
+        }
+        this.operations = config.mix().keySet().toArray(Operation[]::new);
+        this.operationWeights = config.mix().values().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        PersistenceSettings settings = PersistenceSettings.load();
+        if (config.h2()) {
+            settings = settings.with("jpa.datasource.url", H2_URL).with("jpa.datasource.username", "sa");
+        }
+        EntityManagerFactory entityManagerFactory = new HibernatePersistenceProvider().createContainerEntityManagerFactory(
+                new CustomPersistenceUnitInfo(settings), Map.of("hibernate.hbm2ddl.auto", config.h2() ? "create" : config.ddl()));
+        try {
+            new LoadGenerator(config, entityManagerFactory).run();
+        } finally {
+            entityManagerFactory.close();
+        }
+    }
+
+    public void run() throws InterruptedException {
+        System.out.printf("%s%nseeding %d rows per entity...%n", config, config.seedRows());
+        workloads.forEach(workload -> workload.seed(entityManagerFactory, config.seedRows()));
+
+        long start = System.nanoTime();
+        long rampUpNanos = TimeUnit.SECONDS.toNanos(config.rampUpSeconds());
+        steadyFromNanos = start + Math.min(rampUpNanos, TimeUnit.SECONDS.toNanos(config.durationSeconds()));
+        endNanos = start + TimeUnit.SECONDS.toNanos(config.durationSeconds());
+        List<Thread> clients = new ArrayList<>();
+        for (int i = 0; i < config.clients(); i++) {
+            long startAt = start + (config.clients() == 1 ? 0 : rampUpNanos * i / config.clients());
+            Thread.Builder builder = config.virtualThreads() ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+            clients.add(builder.name("load-client-" + i).start(() -> client(startAt)));
+        }
+
+        long nextReport = start + TimeUnit.SECONDS.toNanos(config.reportIntervalSeconds());
+        while (System.nanoTime() < endNanos) {
+            long now = System.nanoTime();
+            if (now >= nextReport) {
+                reportInterval(start, now);
+                nextReport += TimeUnit.SECONDS.toNanos(config.reportIntervalSeconds());
+            }
+            TimeUnit.MILLISECONDS.sleep(Math.max(1, Math.min(TimeUnit.NANOSECONDS.toMillis(nextReport - now), 100)));
+        }
+        running = false;
+        for (Thread client : clients) {
+            client.join();
+        }
+        printSummary(endNanos - steadyFromNanos);
+    }
+
+    private void client(long startAt) {
+        try {
+            long delay = startAt - System.nanoTime();
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            activeClients.incrementAndGet();
+            while (running) {
+                EntityWorkload<?> workload = workloads.get(pick(entityWeights));
+                Operation operation = operations[pick(operationWeights)];
+                String name = workload.getName() + " " + operation.name().toLowerCase();
+                long begin = System.nanoTime();
+                boolean found = true;
+                RuntimeException error = null;
+                try {
+                    found = workload.run(operation, entityManagerFactory);
+                } catch (RuntimeException e) {
+                    error = e;
+                }
+                long end = System.nanoTime();
+                // Operations that end after the test window would inflate the counts the summary divides by it.
+                if (end > endNanos) {
+                    break;
+                }
+                if (error != null) {
+                    recordError(name, error);
+                } else if (!found) {
+                    misses.increment();
+                }
+                long nanos = end - begin;
+                interval.record(nanos);
+                if (end >= steadyFromNanos) {
+                    steady.computeIfAbsent(name, key -> new LatencyHistogram()).record(nanos);
+                }
+                if (config.thinkMillis() > 0) {
+                    TimeUnit.MILLISECONDS.sleep(config.thinkMillis());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            activeClients.decrementAndGet();
+        }
+    }
+
+    private void recordError(String operation, RuntimeException error) {
+        errors.increment();
+        errorsByType.computeIfAbsent(operation + ": " + error.getClass().getName(), key -> new LongAdder()).increment();
+        if (errors.sum() <= LOGGED_ERRORS) {
+            LOGGER.log(Level.WARNING, operation + " failed", error);
+        }
+    }
+
+    private static int pick(int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int value = ThreadLocalRandom.current().nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            value -= weights[i];
+            if (value < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private void reportInterval(long start, long now) {
+        long count = interval.getCount();
+        System.out.printf("t=%4ds clients=%4d %9.0f ops/s  p50=%7.2fms p99=%7.2fms p99.9=%7.2fms  misses=%d errors=%d%n",
+                TimeUnit.NANOSECONDS.toSeconds(now - start), activeClients.get(),
+                count / (double) config.reportIntervalSeconds(), millis(interval.percentileNanos(50)),
+                millis(interval.percentileNanos(99)), millis(interval.percentileNanos(99.9)), misses.sum(), errors.sum());
+        interval.reset();
+    }
+
+    private void printSummary(long steadyNanos) {
+        double seconds = steadyNanos / 1e9;
+        System.out.printf("%nAfter ramp-up (%.0f s):%n%-18s %10s %10s %9s %9s %9s %9s%n",
+                seconds, "operation", "count", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(steady).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            System.out.printf("%-18s %10d %10.0f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), histogram.getCount(),
+                    seconds == 0 ? 0 : histogram.getCount() / seconds, millis(histogram.percentileNanos(50)),
+                    millis(histogram.percentileNanos(99)), millis(histogram.percentileNanos(99.9)), millis(histogram.getMaxNanos()));
+        }
+        long total = steady.values().stream().mapToLong(LatencyHistogram::getCount).sum();
+        System.out.printf("%-18s %10d %10.0f   misses=%d errors=%d%n", "total", total, seconds == 0 ? 0 : total / seconds,
+                misses.sum(), errors.sum());
+        if (!errorsByType.isEmpty()) {
+            System.out.printf("%nErrors (the first %d are logged with their stack trace):%n", LOGGED_ERRORS);
+            new TreeMap<>(errorsByType).forEach((type, count) -> System.out.printf("%10d  %s%n", count.sum(), type));
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
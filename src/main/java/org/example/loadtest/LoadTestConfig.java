@@ -0,0 +1,64 @@
+package org.example.loadtest;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Settings of a LoadGenerator run, read from system properties (-Dloadtest.clients=64 ...):
+//
+//    loadtest.clients            concurrent clients (default 32)
+//    loadtest.threads            virtual or platform (default virtual)
+//    loadtest.duration-s         total run time including ramp-up (default 60)
+//    loadtest.ramp-up-s          clients are started evenly over this time (default 10)
+//    loadtest.report-interval-s  throughput / latency line every n seconds (default 5)
+//    loadtest.mix                weights of the operations (default read:70,write:10,update:15,delete:5)
+//    loadtest.entities           weights of the entities (default employee:1,student:1,stock:1,product:1)
+//    loadtest.seed-rows          rows per entity inserted before the run (default 1000)
+//    loadtest.think-ms           pause of a client between two operations (default 0)
+//    loadtest.database           h2 for an in-memory H2, otherwise the database of jpa.properties (default h2)
+//    loadtest.ddl                hibernate.hbm2ddl.auto for the jpa.properties database (default update)
+public record LoadTestConfig(int clients, boolean virtualThreads, int durationSeconds, int rampUpSeconds,
+                             int reportIntervalSeconds, Map<Operation, Integer> mix, Map<String, Integer> entities,
+                             int seedRows, long thinkMillis, boolean h2, String ddl) {
+
+    public static LoadTestConfig fromSystemProperties() {
+        String threads = System.getProperty("loadtest.threads", "virtual").trim().toLowerCase();
+        if (!threads.equals("virtual") && !threads.equals("platform")) {
+            throw new IllegalArgumentException("loadtest.threads must be virtual or platform: " + threads);
+        }
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        weights(System.getProperty("loadtest.mix", "read:70,write:10,update:15,delete:5"))
+                .forEach((name, weight) -> mix.put(Operation.valueOf(name.toUpperCase()), weight));
+        return new LoadTestConfig(
+                Integer.getInteger("loadtest.clients", 32),
+                threads.equals("virtual"),
+                Integer.getInteger("loadtest.duration-s", 60),
+                Integer.getInteger("loadtest.ramp-up-s", 10),
+                Integer.getInteger("loadtest.report-interval-s", 5),
+                mix,
+                weights(System.getProperty("loadtest.entities", "employee:1,student:1,stock:1,product:1")),
+                Integer.getInteger("loadtest.seed-rows", 1000),
+                Long.getLong("loadtest.think-ms", 0),
+                System.getProperty("loadtest.database", "h2").equalsIgnoreCase("h2"),
+                System.getProperty("loadtest.ddl", "update"));
+    }
+
+    // "a:70,b:30" -> {a=70, b=30}
+    private static Map<String, Integer> weights(String spec) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] nameAndWeight = part.trim().split(":");
+            if (nameAndWeight.length != 2) {
+                throw new IllegalArgumentException("Expected name:weight but got '" + part + "' in " + spec);
+            }
+            int weight = Integer.parseInt(nameAndWeight[1].trim());
+            if (weight > 0) {
+                weights.put(nameAndWeight[0].trim().toLowerCase(), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("No positive weight in " + spec);
+        }
+        return weights;
+    }
+}
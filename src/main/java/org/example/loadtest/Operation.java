@@ -0,0 +1,9 @@
+package org.example.loadtest;
+
+// The kinds of work in a load test mix (loadtest.mix).
+public enum Operation {
+    READ,
+    WRITE,
+    UPDATE,
+    DELETE
+}
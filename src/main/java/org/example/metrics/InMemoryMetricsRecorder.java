@@ -0,0 +1,115 @@
+package org.example.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// The default MetricsRecorder: keeps a LatencyHistogram per operation and per SQL statement in memory,
+// sends slow queries to a SlowQueryLog and sums up the transactions.
+//
+// Statements are keyed by their SQL with IN lists of parameters shortened to "in (?...)", so multi-loads of
+// different sizes share one histogram. At most maxStatements different statements are kept, any further ones
+// (e.g. SQL built with literals) are counted together under OTHER_STATEMENTS.
+//
+// Example:
+//    InMemoryMetricsRecorder recorder = (InMemoryMetricsRecorder) Metrics.getRecorder();
+//    System.out.println(recorder.report());
+public class InMemoryMetricsRecorder implements MetricsRecorder {
+
+    public static final String OTHER_STATEMENTS = "<other statements>";
+
+    private static final Pattern IN_LIST = Pattern.compile("(?i)(\\bin\\s*)\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    private final Map<String, LatencyHistogram> operations = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> statements = new ConcurrentHashMap<>();
+    private final int maxStatements;
+    private final SlowQueryLog slowQueryLog;
+
+    private final LatencyHistogram flushDurations = new LatencyHistogram();
+    private final LongAdder transactions = new LongAdder();
+    private final LongAdder rolledBack = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder slowQueries = new LongAdder();
+
+    public InMemoryMetricsRecorder() {
+        this(new SlowQueryLog(1_000), 1_000);
+    }
+
+    public InMemoryMetricsRecorder(SlowQueryLog slowQueryLog, int maxStatements) {
+        this.slowQueryLog = slowQueryLog;
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    public void recordOperation(String entity, String operation, long nanos) {
+        histogram(operations, entity + "." + operation).record(nanos);
+    }
+
+    @Override
+    public void recordStatement(String sql, long nanos, long rowCount) {
+        String key = IN_LIST.matcher(sql).replaceAll("$1(?...)");
+        if (!statements.containsKey(key) && statements.size() >= maxStatements) {
+            key = OTHER_STATEMENTS;
+        }
+        histogram(statements, key).record(nanos);
+    }
+
+    @Override
+    public void recordSlowQuery(SlowQuery slowQuery) {
+        slowQueries.increment();
+        slowQueryLog.log(slowQuery);
+    }
+
+    @Override
+    public void recordTransaction(TransactionStats transaction) {
+        transactions.increment();
+        if (!transaction.committed()) {
+            rolledBack.increment();
+        }
+        rows.add(transaction.rows());
+        if (transaction.flushes() > 0) {
+            flushDurations.record(transaction.flushNanos());
+        }
+    }
+
+    // Latency per "Entity.operation", e.g. "Employee.persist" or "*.commit".
+    public Map<String, LatencyHistogram> getOperations() {
+        return operations;
+    }
+
+    // Latency per SQL string, normalized as described above.
+    public Map<String, LatencyHistogram> getStatements() {
+        return statements;
+    }
+
+    // The slowest statements first.
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("transactions=%d rolledBack=%d rows=%d slowQueries=%d (dropped %d)%n",
+                transactions.sum(), rolledBack.sum(), rows.sum(), slowQueries.sum(), slowQueryLog.getDropped()));
+        report.append("flush per transaction: ").append(flushDurations).append(System.lineSeparator());
+        new TreeMap<>(operations).forEach((name, histogram) ->
+                report.append(name).append(": ").append(histogram).append(System.lineSeparator()));
+        statements.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().percentileNanos(99), a.getValue().percentileNanos(99)))
+                .forEach(entry -> report.append(entry.getValue()).append(" | ").append(entry.getKey()).append(System.lineSeparator()));
+        return report.toString();
+    }
+
+    public void reset() {
+        operations.clear();
+        statements.clear();
+        flushDurations.reset();
+        transactions.reset();
+        rolledBack.reset();
+        rows.reset();
+        slowQueries.reset();
+    }
+
+    private static LatencyHistogram histogram(Map<String, LatencyHistogram> histograms, String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        return histogram != null ? histogram : histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.metrics;
+
+import org.example.persistence.PersistenceSettings;
+
+import java.util.concurrent.TimeUnit;
+
+// The global switch and settings of the persistence metrics (see jpa.properties, jpa.metrics.*).
+//
+// The recorder is global because Hibernate creates the session listeners itself, with no way to pass
+// an instance. Replace it before creating the EntityManagerFactory to send the numbers somewhere else:
+//    Metrics.setRecorder(new MyMonitoringRecorder());
+public final class Metrics {
+
+    private static volatile MetricsRecorder recorder = new InMemoryMetricsRecorder();
+    private static volatile long slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(200);
+    private static volatile boolean captureParameters = true;
+
+    private Metrics() {
+    }
+
+    public static MetricsRecorder getRecorder() {
+        return recorder;
+    }
+
+    public static void setRecorder(MetricsRecorder recorder) {
+        Metrics.recorder = recorder != null ? recorder : MetricsRecorder.NOOP;
+    }
+
+    public static boolean isEnabled(PersistenceSettings settings) {
+        return settings.getBoolean("jpa.metrics.enabled", false);
+    }
+
+    // A negative slow-query-threshold-ms turns the slow-query log off, and with it the parameter capture.
+    public static void configure(PersistenceSettings settings) {
+        long thresholdMillis = settings.getLong("jpa.metrics.slow-query-threshold-ms", 200);
+        slowQueryThresholdNanos = thresholdMillis < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        captureParameters = settings.getBoolean("jpa.metrics.capture-parameters", true);
+    }
+
+    static long getSlowQueryThresholdNanos() {
+        return slowQueryThresholdNanos;
+    }
+
+    static boolean isSlowQueryLogEnabled() {
+        return slowQueryThresholdNanos >= 0;
+    }
+
+    // Bind values are only ever shown in the slow-query log, so there is nothing to capture without it.
+    static boolean isCaptureParameters() {
+        return captureParameters && isSlowQueryLogEnabled();
+    }
+}
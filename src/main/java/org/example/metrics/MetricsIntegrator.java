@@ -0,0 +1,78 @@
+package org.example.metrics;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.event.spi.PersistContext;
+import org.hibernate.event.spi.PersistEvent;
+import org.hibernate.event.spi.PersistEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+// Times persist() and find()/getReference() per entity.
+//
+// Hibernate runs the listeners of an event in order, with its own default listener doing the work.
+// A listener put in front of it remembers the start time and one put after it records the duration.
+public class MetricsIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.prependListeners(EventType.PERSIST, new PersistStart());
+        registry.appendListeners(EventType.PERSIST, new PersistEnd());
+        registry.prependListeners(EventType.LOAD, (LoadEventListener) (event, loadType) -> start());
+        registry.appendListeners(EventType.LOAD, (LoadEventListener) MetricsIntegrator::loadEnd);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    private static void start() {
+        TransactionTracker.current().operationStarts.push(System.nanoTime());
+    }
+
+    private static void end(String entity, String operation) {
+        Long start = TransactionTracker.current().operationStarts.poll();
+        if (start != null) {
+            Metrics.getRecorder().recordOperation(entity, operation, System.nanoTime() - start);
+        }
+    }
+
+    private static void loadEnd(LoadEvent event, LoadEventListener.LoadType loadType) {
+        String operation = loadType == LoadEventListener.GET ? "find"
+                : loadType == LoadEventListener.LOAD ? "getReference" : "load";
+        end(simpleName(event.getEntityClassName()), operation);
+    }
+
+    private static String simpleName(String className) {
+        return className == null ? "?" : className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    // Only the top-level persist() is timed; cascaded persists use the second onPersist method.
+    private static final class PersistStart implements PersistEventListener {
+        @Override
+        public void onPersist(PersistEvent event) {
+            start();
+        }
+
+        @Override
+        public void onPersist(PersistEvent event, PersistContext createdAlready) {
+        }
+    }
+
+    private static final class PersistEnd implements PersistEventListener {
+        @Override
+        public void onPersist(PersistEvent event) {
+            end(event.getObject().getClass().getSimpleName(), "persist");
+        }
+
+        @Override
+        public void onPersist(PersistEvent event, PersistContext createdAlready) {
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.metrics;
+
+// Receives the measurements of the persistence layer.
+// Implement it to send the numbers to a monitoring system, and install it with Metrics.setRecorder(...).
+// Implementations are called on the thread doing the work, so they must be thread-safe and fast.
+public interface MetricsRecorder {
+
+    // persist, find, getReference and load per entity; flush and commit with entity "*".
+    void recordOperation(String entity, String operation, long nanos);
+
+    // Every JDBC statement execution. For a batch, rows is the sum over the batch.
+    void recordStatement(String sql, long nanos, long rows);
+
+    // Statements slower than jpa.metrics.slow-query-threshold-ms.
+    void recordSlowQuery(SlowQuery slowQuery);
+
+    // Called once per completed (committed or rolled back) transaction.
+    void recordTransaction(TransactionStats transaction);
+
+    MetricsRecorder NOOP = new MetricsRecorder() {
+        @Override
+        public void recordOperation(String entity, String operation, long nanos) {
+        }
+
+        @Override
+        public void recordStatement(String sql, long nanos, long rows) {
+        }
+
+        @Override
+        public void recordSlowQuery(SlowQuery slowQuery) {
+        }
+
+        @Override
+        public void recordTransaction(TransactionStats transaction) {
+        }
+    };
+}
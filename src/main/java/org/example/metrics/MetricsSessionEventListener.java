@@ -0,0 +1,27 @@
+package org.example.metrics;
+
+import org.hibernate.SessionEventListener;
+
+// Times flushes and reports each finished transaction. Hibernate creates one instance per session
+// (hibernate.session.events.auto, set by CustomPersistenceUnitInfo when metrics are enabled).
+public class MetricsSessionEventListener implements SessionEventListener {
+
+    private long flushStart;
+
+    @Override
+    public void flushStart() {
+        flushStart = System.nanoTime();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        long nanos = System.nanoTime() - flushStart;
+        Metrics.getRecorder().recordOperation("*", "flush", nanos);
+        TransactionTracker.current().addFlush(nanos, numberOfEntities);
+    }
+
+    @Override
+    public void transactionCompletion(boolean successful) {
+        Metrics.getRecorder().recordTransaction(TransactionTracker.current().finish(successful));
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.metrics;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// One statement that took longer than the slow-query threshold.
+// parameters maps the JDBC parameter index to the bound value (empty when capturing is disabled).
+public record SlowQuery(Instant executedAt, String sql, Map<Integer, Object> parameters, long nanos, long rows, int batchSize) {
+
+    @Override
+    public String toString() {
+        return String.format("%d ms, %d rows%s: %s %s", TimeUnit.NANOSECONDS.toMillis(nanos), rows,
+                batchSize > 1 ? ", batch of " + batchSize : "", sql, parameters.isEmpty() ? "" : parameters);
+    }
+}
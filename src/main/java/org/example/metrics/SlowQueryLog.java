@@ -0,0 +1,47 @@
+package org.example.metrics;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Writes slow queries to the "org.example.metrics.SlowQueryLog" java.util.logging logger on a background thread.
+//
+// The thread executing the statement only puts the entry into a bounded queue. If the writer cannot keep up,
+// entries are dropped (and counted) instead of slowing the application down, which is the opposite of
+// hibernate.show_sql, where every statement is printed synchronously.
+public class SlowQueryLog {
+
+    private static final Logger LOGGER = Logger.getLogger(SlowQueryLog.class.getName());
+
+    private final BlockingQueue<SlowQuery> queue;
+    private final LongAdder dropped = new LongAdder();
+
+    public SlowQueryLog(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        Thread writer = new Thread(this::writeLoop, "slow-query-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void log(SlowQuery slowQuery) {
+        if (!queue.offer(slowQuery)) {
+            dropped.increment();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                LOGGER.log(Level.WARNING, "Slow query: {0}", queue.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package org.example.metrics;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.temporal.Temporal;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+// Wraps a DataSource so that every JDBC statement execution and every commit is timed.
+//
+// Connections and statements are JDK proxies around the pooled ones: each execute*() call is timed and reported
+// to the MetricsRecorder with its SQL and row count, and statements over the slow-query threshold are reported
+// with their bind parameters. Every other call, including unwrap(), goes straight to the real object.
+public class StatementTimingDataSource implements DataSource {
+
+    private final DataSource delegate;
+
+    public StatementTimingDataSource(DataSource delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(delegate.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(delegate.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(StatementTimingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        // A proxy is only equal to itself, like the pooled objects it wraps.
+        if (method.getName().equals("equals") && args != null && args.length == 1) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode") && args == null) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("commit")) {
+                long start = System.nanoTime();
+                Object result = StatementTimingDataSource.invoke(proxy, connection, method, args);
+                Metrics.getRecorder().recordOperation("*", "commit", System.nanoTime() - start);
+                return result;
+            }
+
+            Object result = StatementTimingDataSource.invoke(proxy, connection, method, args);
+            if (result instanceof CallableStatement statement) {
+                return wrapStatement(statement, CallableStatement.class, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return wrapStatement(statement, PreparedStatement.class, (String) args[0]);
+            }
+            if (result instanceof Statement statement) {
+                return wrapStatement(statement, Statement.class, null);
+            }
+            return result;
+        }
+
+        private static Object wrapStatement(Statement statement, Class<? extends Statement> type, String sql) {
+            return Proxy.newProxyInstance(StatementTimingDataSource.class.getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler(statement, sql));
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String preparedSql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+        private int batchSize;
+
+        private static final int MAX_CAPTURED_LENGTH = 100;
+
+        StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(proxy, method, args);
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                if (Metrics.isCaptureParameters()) {
+                    parameters.put(index, name.equals("setNull") ? null : captured(args[1]));
+                }
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            }
+            return StatementTimingDataSource.invoke(proxy, statement, method, args);
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+            String sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String text ? text : "<batch>";
+            long start = System.nanoTime();
+            Object result = StatementTimingDataSource.invoke(proxy, statement, method, args);
+            long nanos = System.nanoTime() - start;
+
+            long rows = rows(result);
+            MetricsRecorder recorder = Metrics.getRecorder();
+            recorder.recordStatement(sql, nanos, rows);
+            TransactionTracker.current().addStatement(nanos, rows);
+            if (Metrics.isSlowQueryLogEnabled() && nanos >= Metrics.getSlowQueryThresholdNanos()) {
+                recorder.recordSlowQuery(new SlowQuery(Instant.now(), sql,
+                        Collections.unmodifiableMap(new TreeMap<>(parameters)), nanos, rows, batchSize));
+            }
+            if (method.getName().startsWith("executeBatch")) {
+                batchSize = 0;
+            }
+            return result;
+        }
+
+        // What the slow-query log shows of a bind value. Small values are kept as they are; of text only the start
+        // is copied and of binary values, streams and LOBs only the size or type, so a statement with a large
+        // value (a Student signature, a document) does not keep it alive or copy it.
+        private static Object captured(Object value) {
+            if (value == null || value instanceof Number || value instanceof Boolean || value instanceof Enum<?>
+                    || value instanceof UUID || value instanceof Temporal || value instanceof java.util.Date) {
+                return value;
+            }
+            if (value instanceof CharSequence text) {
+                return text.length() <= MAX_CAPTURED_LENGTH ? text.toString()
+                        : text.subSequence(0, MAX_CAPTURED_LENGTH) + "...(" + text.length() + " chars)";
+            }
+            if (value instanceof byte[] bytes) {
+                return "byte[" + bytes.length + "]";
+            }
+            return "<" + value.getClass().getSimpleName() + ">";
+        }
+
+        // Update counts; a query's rows are not counted because they are only known while reading the ResultSet.
+        private static long rows(Object result) {
+            if (result instanceof Integer count) {
+                return Math.max(0, count);
+            }
+            if (result instanceof Long count) {
+                return Math.max(0, count);
+            }
+            long rows = 0;
+            if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    rows += Math.max(0, count);
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    rows += Math.max(0, count);
+                }
+            }
+            return rows;
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,6 @@
+package org.example.metrics;
+
+// Totals of one transaction.
+public record TransactionStats(boolean committed, int statements, long rows, long statementNanos,
+                               int flushes, int flushedEntities, long flushNanos) {
+}
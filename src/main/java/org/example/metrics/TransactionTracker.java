@@ -0,0 +1,49 @@
+package org.example.metrics;
+
+import java.util.ArrayDeque;
+
+// Collects the numbers of the transaction running on the current thread.
+// A Session (and its JDBC connection) is only used by one thread at a time, so a ThreadLocal is enough to let
+// the JDBC wrapper and the Hibernate listeners add to the same transaction.
+final class TransactionTracker {
+
+    private static final ThreadLocal<TransactionTracker> CURRENT = ThreadLocal.withInitial(TransactionTracker::new);
+
+    // Start times of the persist/find calls in progress (they can nest through cascades and associations).
+    final ArrayDeque<Long> operationStarts = new ArrayDeque<>();
+
+    private int statements;
+    private long rows;
+    private long statementNanos;
+    private int flushes;
+    private int flushedEntities;
+    private long flushNanos;
+
+    static TransactionTracker current() {
+        return CURRENT.get();
+    }
+
+    void addStatement(long nanos, long rowCount) {
+        statements++;
+        rows += rowCount;
+        statementNanos += nanos;
+    }
+
+    void addFlush(long nanos, int entities) {
+        flushes++;
+        flushedEntities += entities;
+        flushNanos += nanos;
+    }
+
+    TransactionStats finish(boolean committed) {
+        TransactionStats stats = new TransactionStats(committed, statements, rows, statementNanos, flushes, flushedEntities, flushNanos);
+        statements = 0;
+        rows = 0;
+        statementNanos = 0;
+        flushes = 0;
+        flushedEntities = 0;
+        flushNanos = 0;
+        operationStarts.clear();
+        return stats;
+    }
+}
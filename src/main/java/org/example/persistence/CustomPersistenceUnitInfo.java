@@ -1,21 +1,60 @@
 package org.example.persistence;
 
-import com.zaxxer.hikari.HikariDataSource;
 import jakarta.persistence.SharedCacheMode;
 import jakarta.persistence.ValidationMode;
 import jakarta.persistence.spi.ClassTransformer;
 import jakarta.persistence.spi.PersistenceUnitInfo;
 import jakarta.persistence.spi.PersistenceUnitTransactionType;
-
+import org.example.metrics.Metrics;
+import org.example.metrics.MetricsIntegrator;
+import org.example.metrics.MetricsSessionEventListener;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
 import javax.sql.DataSource;
+import java.net.URI;
 import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CustomPersistenceUnitInfo implements PersistenceUnitInfo {
+
+    private static final AtomicInteger CACHE_MANAGERS = new AtomicInteger();
+
+    private final PersistenceSettings settings;
+    private CacheManager cacheManager;
+
+    public CustomPersistenceUnitInfo() {
+        this(PersistenceSettings.load());
+    }
+
+    public CustomPersistenceUnitInfo(PersistenceSettings settings) {
+        this.settings = settings;
+    }
+
+    public PersistenceSettings getSettings() {
+        return settings;
+    }
+
+    // One pool (plus an optional read replica pool) per persistence unit, sized from jpa.properties.
+    public DataSourceManager getDataSourceManager() {
+        return DataSourceManager.forPersistenceUnit(getPersistenceUnitName(), settings);
+    }
+
+    // Every unit gets its own pool (see getDataSourceManager), so several units, e.g. one per shard, need different names.
     @Override
     public String getPersistenceUnitName() {
-        return "my-persistence-unit";
+        return settings.get("jpa.persistence-unit.name", "my-persistence-unit");
     }
 
     @Override
@@ -30,19 +69,14 @@ public class CustomPersistenceUnitInfo implements PersistenceUnitInfo {
 
     @Override
     public DataSource getJtaDataSource() {
-        HikariDataSource dataSource = new HikariDataSource();
-
-        /* In most cases, you don't generally put your environment data like that. */
-        dataSource.setJdbcUrl("jdbc:postgresql://localhost:5432/jpa");
-        dataSource.setUsername("postgres");
-        dataSource.setPassword("");
-
-        return dataSource;
+        return null;
     }
 
+    // A RESOURCE_LOCAL unit uses the non-JTA data source. The connection settings live in jpa.properties
+    // instead of the source code, and the pool is shared by every call.
     @Override
     public DataSource getNonJtaDataSource() {
-        return null;
+        return getDataSourceManager().getDataSource();
     }
 
     @Override
@@ -70,9 +104,10 @@ public class CustomPersistenceUnitInfo implements PersistenceUnitInfo {
         return false;
     }
 
+    // Only entities annotated with @Cacheable (Product, Stock) are stored in the second-level cache.
     @Override
     public SharedCacheMode getSharedCacheMode() {
-        return null;
+        return SharedCacheMode.ENABLE_SELECTIVE;
     }
 
     @Override
@@ -82,7 +117,41 @@ public class CustomPersistenceUnitInfo implements PersistenceUnitInfo {
 
     @Override
     public Properties getProperties() {
-        return null;
+        Properties properties = settings.hibernateProperties();
+        CacheManager unitCacheManager = getCacheManager();
+        if (unitCacheManager != null) {
+            properties.put(ConfigSettings.CACHE_MANAGER, unitCacheManager);
+        }
+        if (Metrics.isEnabled(settings)) {
+            // Flush/transaction timing per session and persist/find timing per entity, see org.example.metrics.
+            Metrics.configure(settings);
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, MetricsSessionEventListener.class.getName());
+            properties.put(JpaSettings.INTEGRATOR_PROVIDER, (IntegratorProvider) () -> List.of(new MetricsIntegrator()));
+        }
+        return properties;
+    }
+
+    // Every persistence unit gets its own JCache CacheManager, built from the same ehcache.xml. The provider's
+    // default manager is one per JVM: the shards would share one entity cache across different databases, and
+    // the first EntityManagerFactory to close (Hibernate closes the manager with it) would close the regions
+    // of all the others. Null when the second-level cache is off or the provider is not Ehcache, Hibernate then
+    // resolves the manager from hibernate.javax.cache.uri as before.
+    private synchronized CacheManager getCacheManager() {
+        String config = settings.get("hibernate.javax.cache.uri", null);
+        if (cacheManager != null || config == null || !settings.getBoolean("hibernate.cache.use_second_level_cache", false)) {
+            return cacheManager;
+        }
+        String provider = settings.get("hibernate.javax.cache.provider", null);
+        CachingProvider cachingProvider = provider == null ? Caching.getCachingProvider() : Caching.getCachingProvider(provider);
+        if (cachingProvider instanceof EhcacheCachingProvider ehcache) {
+            URL resource = CustomPersistenceUnitInfo.class.getResource("/" + config);
+            if (resource == null) {
+                throw new IllegalStateException("Cache configuration not found on the classpath: " + config);
+            }
+            String name = URLEncoder.encode(getPersistenceUnitName(), StandardCharsets.UTF_8) + "-" + CACHE_MANAGERS.incrementAndGet();
+            cacheManager = ehcache.getCacheManager(URI.create("urn:persistence-unit:" + name), new XmlConfiguration(resource));
+        }
+        return cacheManager;
     }
 
     @Override
@@ -95,6 +164,8 @@ public class CustomPersistenceUnitInfo implements PersistenceUnitInfo {
         return null;
     }
 
+    // The entities are enhanced at build time by the hibernate-enhance-maven-plugin (see pom.xml),
+    // so no class transformer has to be registered at runtime.
     @Override
     public void addTransformer(ClassTransformer classTransformer) {
 
@@ -0,0 +1,117 @@
+package org.example.persistence;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.metrics.Metrics;
+import org.example.metrics.StatementTimingDataSource;
+
+import javax.sql.DataSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Owns the connection pools of a persistence unit.
+//
+// Before, every call to getJtaDataSource() created a brand-new HikariDataSource. Now there is exactly one
+// manager (one primary pool and, when configured, one replica pool) per persistence unit name. The pools are
+// created on first use and closed by close() or, at the latest, when the JVM shuts down.
+//
+// Asking for a unit name that is already registered with other settings fails instead of silently returning
+// the first pool: two units with different databases or pool settings need different jpa.persistence-unit.name
+// values, or the first one has to be closed before.
+public class DataSourceManager implements AutoCloseable {
+
+    private static final Map<String, DataSourceManager> MANAGERS = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(DataSourceManager::closeAll, "pool-shutdown"));
+    }
+
+    private final String name;
+    private final PersistenceSettings settings;
+    private final PoolMetrics.Factory primaryMetrics = new PoolMetrics.Factory();
+    private final PoolMetrics.Factory replicaMetrics = new PoolMetrics.Factory();
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private DataSource dataSource;
+
+    private DataSourceManager(String name, PersistenceSettings settings) {
+        this.name = name;
+        this.settings = settings;
+    }
+
+    public static DataSourceManager forPersistenceUnit(String name, PersistenceSettings settings) {
+        DataSourceManager manager = MANAGERS.computeIfAbsent(name, key -> new DataSourceManager(key, settings));
+        if (!manager.settings.equals(settings)) {
+            throw new IllegalStateException("Persistence unit '" + name + "' already has connection pools with other settings."
+                    + " Close it first or give the new unit its own jpa.persistence-unit.name");
+        }
+        return manager;
+    }
+
+    private static void closeAll() {
+        List.copyOf(MANAGERS.values()).forEach(DataSourceManager::close);
+    }
+
+    // The routing data source (the pools themselves may start lazily, see jpa.datasource.lazy-init), wrapped in a StatementTimingDataSource when jpa.metrics.enabled is set.
+    public synchronized DataSource getDataSource() {
+        if (dataSource == null) {
+            primary = createPool("jpa.datasource.", name + "-primary", primaryMetrics, false);
+            if (settings.get("jpa.datasource.replica.url", null) != null) {
+                replica = createPool("jpa.datasource.replica.", name + "-replica", replicaMetrics, true);
+            }
+            RoutingDataSource routing = new RoutingDataSource(primary, replica);
+            dataSource = Metrics.isEnabled(settings) ? new StatementTimingDataSource(routing) : routing;
+        }
+        return dataSource;
+    }
+
+    public PoolMetrics getPrimaryMetrics() {
+        return primaryMetrics.getMetrics();
+    }
+
+    // Null when no replica is configured.
+    public PoolMetrics getReplicaMetrics() {
+        return replicaMetrics.getMetrics();
+    }
+
+    // Replica values fall back to the primary ones, so only the replica URL is mandatory.
+    private HikariDataSource createPool(String prefix, String poolName, PoolMetrics.Factory metrics, boolean readOnly) {
+        String base = "jpa.datasource.";
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setJdbcUrl(settings.get(prefix + "url", settings.get(base + "url", null)));
+        config.setUsername(settings.get(prefix + "username", settings.get(base + "username", null)));
+        config.setPassword(settings.get(prefix + "password", settings.get(base + "password", "")));
+        config.setMaximumPoolSize(settings.getInt(prefix + "maximum-pool-size", settings.getInt(base + "maximum-pool-size", 10)));
+        config.setMinimumIdle(settings.getInt(prefix + "minimum-idle", settings.getInt(base + "minimum-idle", config.getMaximumPoolSize())));
+        config.setConnectionTimeout(settings.getLong(prefix + "connection-timeout-ms", settings.getLong(base + "connection-timeout-ms", 30_000)));
+        config.setIdleTimeout(settings.getLong(prefix + "idle-timeout-ms", settings.getLong(base + "idle-timeout-ms", 600_000)));
+        config.setMaxLifetime(settings.getLong(prefix + "max-lifetime-ms", settings.getLong(base + "max-lifetime-ms", 1_800_000)));
+        config.setReadOnly(readOnly);
+        config.setMetricsTrackerFactory(metrics);
+
+        // A HikariDataSource created without a config only starts its pool on the first getConnection(),
+        // so startup does not wait for the database (see FastBootstrap).
+        if (settings.getBoolean("jpa.datasource.lazy-init", false)) {
+            HikariDataSource dataSource = new HikariDataSource();
+            config.copyStateTo(dataSource);
+            return dataSource;
+        }
+        return new HikariDataSource(config);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (replica != null) {
+            replica.close();
+        }
+        if (primary != null) {
+            primary.close();
+        }
+        dataSource = null;
+        MANAGERS.remove(name, this);
+    }
+}
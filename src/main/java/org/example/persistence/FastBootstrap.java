@@ -0,0 +1,158 @@
+package org.example.persistence;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.jpa.HibernatePersistenceProvider;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+// Builds the EntityManagerFactory for production, where startup time matters (rolling deploys, autoscaling).
+//
+// Main uses hibernate.hbm2ddl.auto=create, which drops and rebuilds the schema on every start. Here instead:
+//  - A fingerprint of the entity mappings and the DDL settings (SchemaFingerprint) is compared with the one stored in the
+//    "schema_fingerprint" table. If it matches, no DDL is exported and nothing is validated.
+//    If not, jpa.bootstrap.schema-mismatch decides: validate, update or fail. The new fingerprint is stored
+//    once the factory has been built successfully.
+//  - The dialect and database version come from jpa.bootstrap.*, so Hibernate does not open a connection
+//    to detect them.
+//  - The connection pool starts with the first request, not during bootstrap (jpa.datasource.lazy-init).
+//  - Every phase is timed, see getReport().
+//
+// Hibernate 6.2 cannot save its boot metadata between runs, so the fingerprint is what is cached: it is what
+// allows the schema export and validation to be skipped.
+//
+// Example:
+//    FastBootstrap bootstrap = new FastBootstrap();
+//    EntityManagerFactory entityManagerFactory = bootstrap.createEntityManagerFactory(Map.of());
+//    System.out.println(bootstrap.getReport());
+public class FastBootstrap {
+
+    public static final String FINGERPRINT_TABLE = "schema_fingerprint";
+
+    private final PersistenceSettings settings;
+    private final StartupReport report = new StartupReport();
+
+    public FastBootstrap() {
+        this(PersistenceSettings.load());
+    }
+
+    public FastBootstrap(PersistenceSettings settings) {
+        this.settings = settings.with("jpa.datasource.lazy-init", "true");
+    }
+
+    public StartupReport getReport() {
+        return report;
+    }
+
+    public EntityManagerFactory createEntityManagerFactory(Map<String, ?> props) {
+        CustomPersistenceUnitInfo persistenceUnitInfo = new CustomPersistenceUnitInfo(settings);
+        String dialect = settings.get("jpa.bootstrap.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+
+        Map<String, Object> properties = new HashMap<>(props);
+        properties.put("hibernate.dialect", dialect);
+        properties.put("hibernate.temp.use_jdbc_metadata_defaults", "false");
+        // Without a connection Hibernate cannot ask the database for its version, so it is configured as well.
+        String[] version = settings.get("jpa.bootstrap.database-version", "0.0").split("\\.");
+        properties.put("jakarta.persistence.database-major-version", version[0]);
+        properties.put("jakarta.persistence.database-minor-version", version.length > 1 ? version[1] : "0");
+
+        // The unit's hibernate.* settings, overridden by props and the ones above, like Hibernate merges them.
+        Map<String, Object> effective = new HashMap<>();
+        settings.hibernateProperties().forEach((name, value) -> effective.put((String) name, value));
+        effective.putAll(properties);
+        String fingerprint = report.time("mapping fingerprint",
+                () -> SchemaFingerprint.compute(persistenceUnitInfo.getManagedClassNames(), effective));
+        boolean upToDate = report.time("schema fingerprint check", () -> isRecorded(fingerprint));
+        properties.put("hibernate.hbm2ddl.auto", upToDate ? "none" : schemaMismatchAction());
+
+        EntityManagerFactory entityManagerFactory = report.time("entity manager factory",
+                () -> new HibernatePersistenceProvider().createContainerEntityManagerFactory(persistenceUnitInfo, properties));
+
+        if (!upToDate) {
+            report.time("record fingerprint", () -> record(fingerprint));
+        }
+        return entityManagerFactory;
+    }
+
+    private String schemaMismatchAction() {
+        String action = settings.get("jpa.bootstrap.schema-mismatch", "validate");
+        return switch (action) {
+            case "validate", "update" -> action;
+            case "fail" -> throw new IllegalStateException(
+                    "The entity mappings changed since the schema was last checked (jpa.bootstrap.schema-mismatch=fail)");
+            default -> throw new IllegalArgumentException("Unknown jpa.bootstrap.schema-mismatch: " + action);
+        };
+    }
+
+    // A single plain JDBC connection, so the check does not start the pool.
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(settings.get("jpa.datasource.url", null),
+                settings.get("jpa.datasource.username", null), settings.get("jpa.datasource.password", ""));
+    }
+
+    private boolean isRecorded(String fingerprint) {
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement(
+                     "select 1 from " + FINGERPRINT_TABLE + " where fingerprint = ?")) {
+            statement.setString(1, fingerprint);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        } catch (SQLException e) {
+            // On the first start the table does not exist yet: treat it like a changed mapping.
+            // Anything else (no connection, no permission) must not silently trigger a schema update.
+            if (isMissingTable(e)) {
+                return false;
+            }
+            throw new RuntimeException("Error reading the schema fingerprint", e);
+        }
+    }
+
+    // 42P01 is PostgreSQL's undefined_table and 42S02 the ODBC "base table or view not found" (MySQL, SQL Server).
+    // H2 reports 42S02 too, or 42S04 while the database is still empty.
+    private static boolean isMissingTable(SQLException e) {
+        return switch (String.valueOf(e.getSQLState())) {
+            case "42P01", "42S02", "42S04" -> true;
+            default -> false;
+        };
+    }
+
+    // Only the latest fingerprint is kept: after a rollback to older mappings their old fingerprint must not
+    // count as checked, because the schema has been changed since.
+    private void record(String fingerprint) {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists " + FINGERPRINT_TABLE
+                    + " (fingerprint varchar(64) not null primary key, recorded_at timestamp not null)");
+            connection.setAutoCommit(false);
+            try (PreparedStatement delete = connection.prepareStatement(
+                         "delete from " + FINGERPRINT_TABLE + " where fingerprint <> ?");
+                 PreparedStatement insert = connection.prepareStatement(
+                         "insert into " + FINGERPRINT_TABLE + " (fingerprint, recorded_at) select ?, ? where not exists"
+                                 + " (select 1 from " + FINGERPRINT_TABLE + " where fingerprint = ?)")) {
+                delete.setString(1, fingerprint);
+                delete.executeUpdate();
+                insert.setString(1, fingerprint);
+                insert.setTimestamp(2, Timestamp.from(Instant.now()));
+                insert.setString(3, fingerprint);
+                insert.executeUpdate();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                // 23xxx: another instance that started at the same time recorded the same fingerprint.
+                if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                    throw e;
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error recording the schema fingerprint", e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+// Configuration for the persistence layer.
+// Values come from "jpa.properties" on the classpath and can be overridden with JVM system properties,
+// so pool sizing or the database URL can be changed without editing source.
+public class PersistenceSettings {
+
+    public static final String RESOURCE = "/jpa.properties";
+
+    private final Properties properties;
+
+    public PersistenceSettings(Properties properties) {
+        this.properties = properties;
+    }
+
+    public static PersistenceSettings load() {
+        Properties properties = new Properties();
+        try (InputStream in = PersistenceSettings.class.getResourceAsStream(RESOURCE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading " + RESOURCE, e);
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("jpa.") || name.startsWith("hibernate.")) {
+                properties.setProperty(name, System.getProperty(name));
+            }
+        }
+        return new PersistenceSettings(properties);
+    }
+
+    public String get(String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = get(key, null);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    // A copy of these settings with one value replaced.
+    public PersistenceSettings with(String key, String value) {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        copy.setProperty(key, value);
+        return new PersistenceSettings(copy);
+    }
+
+    // Every "hibernate.*" entry, for PersistenceUnitInfo.getProperties().
+    public Properties hibernateProperties() {
+        Properties hibernate = new Properties();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith("hibernate.")) {
+                hibernate.setProperty(name, properties.getProperty(name));
+            }
+        }
+        return hibernate;
+    }
+
+    // Equal when every key has the same value, so the same configuration loaded twice is recognised.
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PersistenceSettings settings && properties.equals(settings.properties);
+    }
+
+    @Override
+    public int hashCode() {
+        return properties.hashCode();
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.persistence;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Metrics for one HikariCP pool.
+// HikariCP reports every connection checkout to this tracker, which gives us the acquisition latency
+// (how long a thread waited for a connection). Active, idle and waiting counts come from the pool's own
+// PoolStats, which HikariCP refreshes at most once per second.
+public class PoolMetrics implements IMetricsTracker {
+
+    private final String poolName;
+    private final PoolStats poolStats;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder acquisitionNanos = new LongAdder();
+    private final LongAccumulator maxAcquisitionNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder usageMillis = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    PoolMetrics(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+    }
+
+    // Hands every pool created with it a PoolMetrics and remembers the last one.
+    static class Factory implements MetricsTrackerFactory {
+        private volatile PoolMetrics metrics;
+
+        @Override
+        public IMetricsTracker create(String poolName, PoolStats poolStats) {
+            metrics = new PoolMetrics(poolName, poolStats);
+            return metrics;
+        }
+
+        PoolMetrics getMetrics() {
+            return metrics;
+        }
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        acquisitions.increment();
+        acquisitionNanos.add(elapsedAcquiredNanos);
+        maxAcquisitionNanos.accumulate(elapsedAcquiredNanos);
+    }
+
+    @Override
+    public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+        usageMillis.add(elapsedBorrowedMillis);
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+        timeouts.increment();
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public int getActiveConnections() {
+        return poolStats.getActiveConnections();
+    }
+
+    public int getIdleConnections() {
+        return poolStats.getIdleConnections();
+    }
+
+    public int getTotalConnections() {
+        return poolStats.getTotalConnections();
+    }
+
+    // Threads currently waiting for a connection.
+    public int getPendingThreads() {
+        return poolStats.getPendingThreads();
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    public double getAverageAcquisitionMicros() {
+        long count = acquisitions.sum();
+        return count == 0 ? 0 : acquisitionNanos.sum() / 1_000.0 / count;
+    }
+
+    public long getMaxAcquisitionMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxAcquisitionNanos.get());
+    }
+
+    public double getAverageUsageMillis() {
+        long count = acquisitions.sum();
+        return count == 0 ? 0 : (double) usageMillis.sum() / count;
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: active=%d idle=%d total=%d waiting=%d acquisitions=%d avgAcquire=%.1fus maxAcquire=%dus avgUsage=%.1fms timeouts=%d",
+                poolName, getActiveConnections(), getIdleConnections(), getTotalConnections(), getPendingThreads(),
+                getAcquisitions(), getAverageAcquisitionMicros(), getMaxAcquisitionMicros(), getAverageUsageMillis(), getTimeouts());
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.persistence;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+// A DataSource that hands out primary connections by default and replica connections inside a read-only scope.
+//
+// Hibernate takes its connection when the transaction begins, so the whole transaction has to run inside the scope:
+//
+//    String name = RoutingDataSource.readOnly(() -> {
+//        entityManager.getTransaction().begin();
+//        String result = entityManager.find(Employee.class, 1).getName();
+//        entityManager.getTransaction().commit();
+//        return result;
+//    });
+//
+// Without a replica pool the read-only scope simply uses the primary.
+public class RoutingDataSource implements DataSource {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final DataSource primary;
+    private final DataSource replica;
+
+    public RoutingDataSource(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        this.replica = replica != null ? replica : primary;
+    }
+
+    public static <T> T readOnly(Supplier<T> work) {
+        boolean previous = READ_ONLY.get();
+        READ_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            READ_ONLY.set(previous);
+        }
+    }
+
+    public static void readOnly(Runnable work) {
+        readOnly(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static boolean isReadOnly() {
+        return READ_ONLY.get();
+    }
+
+    private DataSource current() {
+        return isReadOnly() ? replica : primary;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return current().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return current().getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+        replica.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+        replica.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+}
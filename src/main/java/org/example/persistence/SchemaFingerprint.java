@@ -0,0 +1,153 @@
+package org.example.persistence;
+
+import jakarta.persistence.Embeddable;
+import org.hibernate.Version;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// A SHA-256 checksum of everything the generated schema depends on. If it is the same as when the schema was last
+// checked, the schema cannot have changed and there is no need to export or validate it again:
+//  - the Hibernate version,
+//  - the settings that shape the DDL (dialect, database version, default schema, naming strategies, quoting,
+//    hbm2ddl options ...), see isDdlSetting(),
+//  - the bytecode of the managed entity classes and of the application classes their mapping refers to:
+//    superclasses, embeddables, and classes named in annotations (@IdClass, @GenericGenerator, @Convert ...).
+final class SchemaFingerprint {
+
+    private SchemaFingerprint() {
+    }
+
+    static String compute(List<String> managedClassNames, Map<String, ?> properties) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Version.getVersionString().getBytes(StandardCharsets.UTF_8));
+
+            Map<String, String> ddlSettings = new TreeMap<>();
+            properties.forEach((name, value) -> {
+                if (isDdlSetting(name)) {
+                    ddlSettings.put(name, String.valueOf(value));
+                }
+            });
+            ddlSettings.forEach((name, value) -> digest.update((name + "=" + value + "\n").getBytes(StandardCharsets.UTF_8)));
+
+            ClassLoader classLoader = SchemaFingerprint.class.getClassLoader();
+            for (String className : mappedClasses(managedClassNames, classLoader)) {
+                digest.update(className.getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = classLoader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+                    if (in == null) {
+                        throw new IllegalStateException("Mapped class not found: " + className);
+                    }
+                    digest.update(in.readAllBytes());
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new RuntimeException("Error computing the schema fingerprint", e);
+        }
+    }
+
+    // hbm2ddl.auto itself is what the fingerprint decides, everything else under these names changes the DDL.
+    static boolean isDdlSetting(String name) {
+        if (name.equals("hibernate.hbm2ddl.auto") || name.equals("jakarta.persistence.schema-generation.database.action")) {
+            return false;
+        }
+        return name.equals("hibernate.dialect")
+                || name.startsWith("jakarta.persistence.database-")
+                || name.equals("hibernate.default_schema")
+                || name.equals("hibernate.default_catalog")
+                || name.endsWith("naming_strategy")
+                || name.startsWith("hibernate.hbm2ddl.")
+                || name.startsWith("jakarta.persistence.schema-generation.")
+                || name.startsWith("hibernate.schema_update.")
+                || name.equals("hibernate.schema_management_tool")
+                || name.startsWith("hibernate.globally_quoted_identifiers")
+                || name.equals("hibernate.auto_quote_keyword")
+                || name.equals("hibernate.column_ordering_strategy")
+                || name.startsWith("hibernate.id.")
+                || name.startsWith("hibernate.type.")
+                || name.startsWith("hibernate.timezone.");
+    }
+
+    // The managed classes plus every application class their mapping depends on, sorted by name.
+    static Set<String> mappedClasses(List<String> managedClassNames, ClassLoader classLoader) {
+        Set<String> names = new TreeSet<>();
+        Deque<Class<?>> work = new ArrayDeque<>();
+        for (String className : managedClassNames) {
+            try {
+                work.add(Class.forName(className, false, classLoader));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Managed class not found: " + className, e);
+            }
+        }
+        while (!work.isEmpty()) {
+            Class<?> type = work.poll();
+            if (!names.add(type.getName())) {
+                continue;
+            }
+            List<Class<?>> referenced = new ArrayList<>();
+            referenced.add(type.getSuperclass());
+            List<AnnotatedElement> elements = new ArrayList<>(List.of(type.getDeclaredFields()));
+            elements.addAll(List.of(type.getDeclaredMethods()));
+            elements.add(type);
+            for (AnnotatedElement element : elements) {
+                if (element instanceof Field field && field.getType().isAnnotationPresent(Embeddable.class)) {
+                    referenced.add(field.getType());
+                }
+                for (Annotation annotation : element.getDeclaredAnnotations()) {
+                    addAnnotationClasses(annotation, referenced);
+                }
+            }
+            for (Class<?> candidate : referenced) {
+                if (isApplicationClass(candidate, classLoader)) {
+                    work.add(candidate);
+                }
+            }
+        }
+        return names;
+    }
+
+    // Class values of the annotation, also inside nested annotations like @GenericGenerator(parameters = ...).
+    private static void addAnnotationClasses(Annotation annotation, List<Class<?>> classes) {
+        for (Method attribute : annotation.annotationType().getDeclaredMethods()) {
+            Object value;
+            try {
+                value = attribute.invoke(annotation);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                continue;
+            }
+            Object[] values = value instanceof Object[] array ? array : new Object[]{value};
+            for (Object element : values) {
+                if (element instanceof Class<?> type) {
+                    classes.add(type);
+                } else if (element instanceof Annotation nested) {
+                    addAnnotationClasses(nested, classes);
+                }
+            }
+        }
+    }
+
+    // Classes of the JDK, Jakarta Persistence and Hibernate are covered by the Hibernate version.
+    private static boolean isApplicationClass(Class<?> type, ClassLoader classLoader) {
+        return type != null && type != Object.class && !type.isPrimitive() && !type.isArray()
+                && type.getClassLoader() == classLoader
+                && !type.getName().startsWith("jakarta.") && !type.getName().startsWith("org.hibernate.");
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+// How long each phase of the bootstrap took.
+public class StartupReport {
+
+    public record Phase(String name, long nanos) {
+    }
+
+    private final List<Phase> phases = new ArrayList<>();
+
+    public <T> T time(String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            phases.add(new Phase(phase, System.nanoTime() - start));
+        }
+    }
+
+    public void time(String phase, Runnable work) {
+        time(phase, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public List<Phase> getPhases() {
+        return phases;
+    }
+
+    public long getTotalNanos() {
+        return phases.stream().mapToLong(Phase::nanos).sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder(String.format("startup: %.1f ms%n", getTotalNanos() / 1_000_000.0));
+        for (Phase phase : phases) {
+            report.append(String.format("  %-28s %8.1f ms%n", phase.name(), phase.nanos() / 1_000_000.0));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.persistence;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+// Runs units of work, each on its own virtual thread, with its own EntityManager and transaction.
+//
+// The transaction boilerplate of Main (begin, commit, rollback on failure, close in finally) is done here,
+// so a unit of work is just a function of the EntityManager:
+//
+//    try (UnitOfWorkExecutor executor = new UnitOfWorkExecutor(entityManagerFactory, persistenceUnitInfo.getSettings())) {
+//        CompletableFuture<String> name = executor.submit(entityManager -> entityManager.find(Employee.class, 1L).getName());
+//    }
+//
+// Virtual threads are cheap, connections are not. A unit of work only starts when it gets one of the permits,
+// and there are as many permits as connections in the pool. Thousands of submitted units therefore wait as
+// parked virtual threads instead of all waiting inside the pool for a connection (and timing out there).
+public class UnitOfWorkExecutor implements AutoCloseable {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public UnitOfWorkExecutor(EntityManagerFactory entityManagerFactory, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        this.entityManagerFactory = entityManagerFactory;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    // One permit per connection of the primary pool.
+    public UnitOfWorkExecutor(EntityManagerFactory entityManagerFactory, PersistenceSettings settings) {
+        this(entityManagerFactory, settings.getInt("jpa.datasource.maximum-pool-size", 10));
+    }
+
+    public <T> CompletableFuture<T> submit(Function<EntityManager, T> work) {
+        return CompletableFuture.supplyAsync(() -> run(work), executor);
+    }
+
+    // The transaction runs on the replica pool, see RoutingDataSource.
+    public <T> CompletableFuture<T> submitReadOnly(Function<EntityManager, T> work) {
+        return CompletableFuture.supplyAsync(() -> RoutingDataSource.readOnly(() -> run(work)), executor);
+    }
+
+    // Units of work currently holding a permit.
+    public int getActive() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    // Units of work waiting for a permit.
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    private <T> T run(Function<EntityManager, T> work) {
+        permits.acquireUninterruptibly();
+        EntityManager entityManager = null;
+        try {
+            entityManager = entityManagerFactory.createEntityManager();
+            EntityTransaction transaction = entityManager.getTransaction();
+            transaction.begin();
+            try {
+                T result = work.apply(entityManager);
+                transaction.commit();
+                return result;
+            } catch (RuntimeException | Error e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        } finally {
+            if (entityManager != null) {
+                entityManager.close();
+            }
+            permits.release();
+        }
+    }
+
+    // Waits for the submitted units of work to finish.
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
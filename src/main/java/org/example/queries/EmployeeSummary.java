@@ -0,0 +1,5 @@
+package org.example.queries;
+
+// Employee list row, see Projections.
+public record EmployeeSummary(long id, String name, String address) {
+}
@@ -0,0 +1,11 @@
+package org.example.queries;
+
+import java.util.List;
+
+// One page of a KeysetPager listing. nextToken is null on the last page.
+public record KeysetPage<T>(List<T> items, String nextToken) {
+
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.queries;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.EntityType;
+import org.example.entities.Employee;
+import org.example.entities.Student;
+import org.hibernate.jpa.HibernateHints;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+// Seek ("keyset") pagination by primary key, for listings that are read page after page.
+//
+// "order by id offset 100000 limit 50" makes the database read and throw away 100000 rows, so every page is
+// slower than the one before. Here the next page starts after the last ID that was seen:
+//    select e from Employee e where e.id > :last order by e.id
+// which is one index seek, whatever the page depth. The ID is unique, so the order is stable and rows are
+// neither skipped nor repeated when other rows are inserted or deleted between two pages.
+//
+// The last ID is handed back to the caller as an opaque continuation token (Base64 of "<direction>:<id>").
+// Employee IDs come from a sequence and Student IDs are time ordered, so ID order is also insertion order.
+//
+// Entities are loaded read-only: Hibernate keeps no snapshot for them and never dirty-checks them on flush.
+// For listings that should not touch the primary at all, run the call inside RoutingDataSource.readOnly(...).
+//
+// Example:
+//    KeysetPager<Employee> pager = KeysetPager.employees(50);
+//    KeysetPage<Employee> page = pager.page(entityManager, null);           // first page
+//    KeysetPage<Employee> next = pager.page(entityManager, page.nextToken());
+public final class KeysetPager<T> {
+
+    public enum Direction { ASC, DESC }
+
+    private final Class<T> entityClass;
+    private final int pageSize;
+    private final Direction direction;
+
+    public KeysetPager(Class<T> entityClass, int pageSize, Direction direction) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be at least 1");
+        }
+        this.entityClass = entityClass;
+        this.pageSize = pageSize;
+        this.direction = direction;
+    }
+
+    public static KeysetPager<Employee> employees(int pageSize) {
+        return new KeysetPager<>(Employee.class, pageSize, Direction.ASC);
+    }
+
+    public static KeysetPager<Student> students(int pageSize) {
+        return new KeysetPager<>(Student.class, pageSize, Direction.ASC);
+    }
+
+    // token is null for the first page, otherwise the nextToken of the previous page.
+    public KeysetPage<T> page(EntityManager entityManager, String token) {
+        EntityType<T> entity = entityManager.getMetamodel().entity(entityClass);
+        Class<?> idType = entity.getIdType().getJavaType();
+        String id = entity.getId(idType).getName();
+
+        Object after = token == null ? null : decode(token, idType);
+        String jpql = "select e from " + entity.getName() + " e"
+                + (after == null ? "" : " where e." + id + (direction == Direction.ASC ? " > :after" : " < :after"))
+                + " order by e." + id + (direction == Direction.ASC ? " asc" : " desc");
+
+        // One row more than the page size tells whether there is a next page, without a count query.
+        TypedQuery<T> query = entityManager.createQuery(jpql, entityClass)
+                .setMaxResults(pageSize + 1)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, pageSize + 1);
+        if (after != null) {
+            query.setParameter("after", after);
+        }
+        List<T> rows = query.getResultList();
+
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        Object lastId = entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(items.get(pageSize - 1));
+        return new KeysetPage<>(List.copyOf(items), encode(lastId));
+    }
+
+    private String encode(Object id) {
+        String value = direction.name() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // A token only continues the listing it came from, one of another direction is rejected.
+    private Object decode(String token, Class<?> idType) {
+        String value;
+        try {
+            value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+        String prefix = direction.name() + ":";
+        if (!value.startsWith(prefix)) {
+            throw new IllegalArgumentException("Continuation token does not belong to a " + direction + " listing: " + token);
+        }
+        String id = value.substring(prefix.length());
+        try {
+            if (idType == Long.class || idType == long.class) {
+                return Long.valueOf(id);
+            }
+            if (idType == Integer.class || idType == int.class) {
+                return Integer.valueOf(id);
+            }
+            if (idType == UUID.class) {
+                return UUID.fromString(id);
+            }
+            if (idType == String.class) {
+                return id;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+        throw new IllegalArgumentException("Keyset paging is not supported for ID type " + idType.getName());
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.queries;
+
+// Interface projection that fits both Employee and Student, see Projections.
+public interface NameAndAddress {
+
+    String getName();
+
+    String getAddress();
+}
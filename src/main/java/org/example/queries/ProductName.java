@@ -0,0 +1,5 @@
+package org.example.queries;
+
+// Product id -> name, see Projections.
+public record ProductName(Long id, String name) {
+}
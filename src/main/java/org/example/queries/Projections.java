@@ -0,0 +1,156 @@
+package org.example.queries;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Reads only the columns a caller needs, straight into a record or an interface, instead of whole entities.
+//
+// An entity query creates a managed entity per row, plus a copy of its state (the snapshot used for dirty
+// checking), and keeps both in the persistence context until the EntityManager is closed. A projection creates
+// only the result object: nothing is added to the persistence context and nothing is dirty-checked.
+//
+// The select list is derived from the projection type:
+//  - record:     one attribute per component, in order, read with a constructor expression
+//                "select new EmployeeSummary(e.id, e.name, e.address) from Employee e ..."
+//  - interface:  one attribute per getter (getName() -> e.name), rows are wrapped in a small proxy.
+// The rest of the query ("where", "order by") is given as JPQL with "e" as the entity alias.
+//
+// The queries run with FlushModeType.COMMIT, so pending changes of the EntityManager are not flushed first,
+// and with the read-only hint in case the projection contains entities.
+//
+// Example:
+//    List<EmployeeSummary> rows = Projections.query(entityManager, Employee.class, EmployeeSummary.class,
+//                    "where e.address = :address order by e.id")
+//            .setParameter("address", "Istanbul")
+//            .setMaxResults(50)
+//            .getResultList();
+public final class Projections {
+
+    // The select list of every projection type, built once.
+    private static final Map<Class<?>, Shape> SHAPES = new ConcurrentHashMap<>();
+
+    private record Shape(String[] attributes, String select) {
+    }
+
+    private Projections() {
+    }
+
+    public static <R> ProjectionQuery<R> query(EntityManager entityManager, Class<?> entityClass, Class<R> projection) {
+        return query(entityManager, entityClass, projection, "");
+    }
+
+    public static <R> ProjectionQuery<R> query(EntityManager entityManager, Class<?> entityClass, Class<R> projection, String clauses) {
+        Shape shape = SHAPES.computeIfAbsent(projection, Projections::shapeOf);
+        String jpql = shape.select() + " from " + entityManager.getMetamodel().entity(entityClass).getName() + " e " + clauses;
+
+        if (projection.isRecord()) {
+            return new ProjectionQuery<>(readOnly(entityManager.createQuery(jpql, projection)), null);
+        }
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql, Tuple.class);
+        return new ProjectionQuery<>(readOnly(query), tuple -> proxy(projection, shape.attributes(), tuple));
+    }
+
+    private static Shape shapeOf(Class<?> projection) {
+        String[] attributes = attributesOf(projection);
+        if (projection.isRecord()) {
+            String select = Arrays.stream(attributes).map(a -> "e." + a).collect(Collectors.joining(", "));
+            return new Shape(attributes, "select new " + projection.getName() + "(" + select + ")");
+        }
+        return new Shape(attributes, Arrays.stream(attributes).map(a -> "e." + a + " as " + a)
+                .collect(Collectors.joining(", ", "select ", "")));
+    }
+
+    private static <Q extends TypedQuery<?>> Q readOnly(Q query) {
+        query.setFlushMode(FlushModeType.COMMIT);
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        return query;
+    }
+
+    private static String[] attributesOf(Class<?> projection) {
+        if (projection.isRecord()) {
+            return Arrays.stream(projection.getRecordComponents()).map(RecordComponent::getName).toArray(String[]::new);
+        }
+        if (projection.isInterface()) {
+            return Arrays.stream(projection.getMethods())
+                    .filter(m -> m.getParameterCount() == 0 && !m.isDefault())
+                    .map(Projections::propertyName)
+                    .sorted()
+                    .toArray(String[]::new);
+        }
+        throw new IllegalArgumentException("A projection must be a record or an interface: " + projection.getName());
+    }
+
+    private static String propertyName(Method getter) {
+        String name = getter.getName();
+        int prefix = name.startsWith("get") ? 3 : name.startsWith("is") ? 2 : 0;
+        if (prefix == 0 || name.length() == prefix) {
+            throw new IllegalArgumentException("Not a getter: " + getter);
+        }
+        return Character.toLowerCase(name.charAt(prefix)) + name.substring(prefix + 1);
+    }
+
+    private static <R> R proxy(Class<R> projection, String[] attributes, Tuple tuple) {
+        Object proxy = Proxy.newProxyInstance(projection.getClassLoader(), new Class<?>[]{projection}, (self, method, args) ->
+                switch (method.getName()) {
+                    case "toString" -> projection.getSimpleName() + Arrays.stream(attributes)
+                            .map(a -> a + "=" + tuple.get(a)).collect(Collectors.joining(", ", "[", "]"));
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> tuple.get(propertyName(method));
+                });
+        return projection.cast(proxy);
+    }
+
+    // The typed query plus the conversion of its rows into the projection type (none for records).
+    public static final class ProjectionQuery<R> {
+
+        private final TypedQuery<?> query;
+        private final Function<Object, R> mapper;
+
+        @SuppressWarnings("unchecked")
+        private <T> ProjectionQuery(TypedQuery<T> query, Function<? super T, R> mapper) {
+            this.query = query;
+            this.mapper = (Function<Object, R>) mapper;
+        }
+
+        public ProjectionQuery<R> setParameter(String name, Object value) {
+            query.setParameter(name, value);
+            return this;
+        }
+
+        public ProjectionQuery<R> setFirstResult(int firstResult) {
+            query.setFirstResult(firstResult);
+            return this;
+        }
+
+        public ProjectionQuery<R> setMaxResults(int maxResults) {
+            query.setMaxResults(maxResults);
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public List<R> getResultList() {
+            List<?> rows = query.getResultList();
+            return mapper == null ? (List<R>) rows : rows.stream().map(mapper).toList();
+        }
+
+        @SuppressWarnings("unchecked")
+        public R getSingleResult() {
+            Object row = query.getSingleResult();
+            return mapper == null ? (R) row : mapper.apply(row);
+        }
+    }
+}
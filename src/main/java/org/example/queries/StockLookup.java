@@ -0,0 +1,89 @@
+package org.example.queries;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import org.example.entities.Stock;
+import org.example.entities.keys.StockKeys;
+import org.example.persistence.PersistenceSettings;
+import org.hibernate.Session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+// Loads many Stock rows by (code, number) at once, instead of one entityManager.find() per key.
+//
+// The keys are resolved in this order:
+//  1. Stocks already managed by the EntityManager (persistence context).
+//  2. The "stock" region of the second-level cache.
+//  3. The database, with one "where (code, number) in ((?, ?), (?, ?), ...)" query per batchSize remaining keys.
+// So checking 300 pairs costs at most ceil(300 / batchSize) queries instead of 300.
+//
+// Example (order validation):
+//    StockLookup lookup = new StockLookup(settings);
+//    Map<StockKeys, Stock> stocks = lookup.findAll(entityManager, orderLines.stream().map(OrderLine::stockKey).toList());
+//    // keys without a row are missing from the map
+public final class StockLookup {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final int batchSize;
+
+    public StockLookup(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public StockLookup(PersistenceSettings settings) {
+        this(settings.getInt("jpa.lookup.batch-size", DEFAULT_BATCH_SIZE));
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    // Duplicate keys are loaded once. The returned map only contains the keys that exist.
+    public Map<StockKeys, Stock> findAll(EntityManager entityManager, Collection<StockKeys> keys) {
+        List<StockKeys> distinct = List.copyOf(new LinkedHashSet<>(keys));
+        if (distinct.isEmpty()) {
+            return Map.of();
+        }
+
+        // Hibernate's multi-load (6.2) checks the persistence context but not the second-level cache,
+        // so cached keys are taken out first. find() answers them from the context or the cache without SQL.
+        Map<StockKeys, Stock> result = new HashMap<>(distinct.size() * 2);
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        List<StockKeys> remaining = new ArrayList<>(distinct.size());
+        for (StockKeys key : distinct) {
+            Stock stock = cache.contains(Stock.class, key) ? entityManager.find(Stock.class, key) : null;
+            if (stock != null) {
+                result.put(key, stock);
+            } else {
+                remaining.add(key);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return result;
+        }
+
+        // Ordered return is turned off because the result is keyed by the entity's own ID anyway.
+        List<Stock> stocks = entityManager.unwrap(Session.class)
+                .byMultipleIds(Stock.class)
+                .withBatchSize(batchSize)
+                .enableSessionCheck(true)
+                .enableOrderedReturn(false)
+                .multiLoad(remaining);
+
+        for (Stock stock : stocks) {
+            if (stock != null) {
+                result.put(new StockKeys(stock.getCode(), stock.getNumber()), stock);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.queries;
+
+import java.util.UUID;
+
+// Student list row, see Projections.
+public record StudentSummary(UUID id, String name) {
+}
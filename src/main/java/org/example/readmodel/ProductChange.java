@@ -0,0 +1,7 @@
+package org.example.readmodel;
+
+import java.time.Instant;
+
+// A Product row as ProductNameSnapshot reads it (a Projections record, no entity is loaded).
+public record ProductChange(Long id, String name, Instant updatedAt) {
+}
@@ -0,0 +1,483 @@
+package org.example.readmodel;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entities.Product;
+import org.example.metrics.LatencyHistogram;
+import org.example.persistence.PersistenceSettings;
+import org.example.queries.Projections;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Product id -> name without the EntityManager, from a memory-mapped file.
+//
+// The file is an open-addressing hash table keyed by the primitive long ID, followed by the UTF-8 names:
+//
+//    header (64 bytes)   magic, capacity, size, end of the name data, refresh cursor, refresh time, dirty flag
+//    slots              capacity x (long id, int offset, int length), Long.MIN_VALUE marks an empty slot
+//    names              UTF-8 bytes, appended
+//
+// Lookups read the mapped pages directly: nothing is kept on the Java heap and nothing has to be loaded after a
+// restart, the operating system pages the file in on demand. A node that restarts answers from the previous
+// snapshot immediately and only reads what changed since (warm restart).
+//
+// Refreshing:
+//  - refresh():  incremental, reads the products whose updatedAt is newer than the last refresh (minus an
+//                overlap for clock differences and late commits) and upserts them.
+//  - rebuild():  full, reads all products into a new file and swaps it in. Deleted products only disappear
+//                with a rebuild, so run it now and then (startAutoRefresh does).
+// A renamed product gets its new name appended; the old bytes stay until the file is grown or rebuilt.
+//
+// Lookups are lock-free (StampedLock optimistic reads); one refresh writes at a time. The file is limited to
+// 2 GB by MappedByteBuffer, which is far more than an id -> name map needs.
+//
+// Example:
+//    ProductNameSnapshot names = ProductNameSnapshot.open(entityManagerFactory, settings);
+//    names.startAutoRefresh();
+//    String name = names.nameOf(42L);
+public class ProductNameSnapshot implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ProductNameSnapshot.class.getName());
+
+    private static final int MAGIC = 0x504E5331;    // "PNS1"
+    private static final int HEADER = 64;
+    private static final int SLOT = 16;
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final double MAX_LOAD = 0.7;
+    private static final int PAGE_SIZE = 1000;
+
+    // Header offsets
+    private static final int CAPACITY = 4;
+    private static final int SIZE = 8;
+    private static final int DATA_END = 16;
+    private static final int CURSOR = 24;
+    private static final int REFRESHED_AT = 32;
+    private static final int DIRTY = 40;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Path file;
+    private final Duration overlap;
+    private final long refreshIntervalMillis;
+    private final long rebuildIntervalMillis;
+    private final StampedLock lock = new StampedLock();
+    private final LatencyHistogram lookups = new LatencyHistogram();
+    private volatile MappedByteBuffer buffer;
+    private ScheduledExecutorService refresher;
+
+    private ProductNameSnapshot(EntityManagerFactory entityManagerFactory, Path file, Duration overlap,
+                                long refreshIntervalMillis, long rebuildIntervalMillis) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.file = file;
+        this.overlap = overlap;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.rebuildIntervalMillis = rebuildIntervalMillis;
+    }
+
+    // Uses the existing snapshot file when it is complete, otherwise builds it from the database first.
+    public static ProductNameSnapshot open(EntityManagerFactory entityManagerFactory, Path file, Duration overlap,
+                                           long refreshIntervalMillis, long rebuildIntervalMillis) {
+        ProductNameSnapshot snapshot = new ProductNameSnapshot(entityManagerFactory, file, overlap,
+                refreshIntervalMillis, rebuildIntervalMillis);
+        MappedByteBuffer existing = snapshot.mapExisting();
+        if (existing != null) {
+            snapshot.buffer = existing;
+        } else {
+            snapshot.rebuild();
+        }
+        return snapshot;
+    }
+
+    public static ProductNameSnapshot open(EntityManagerFactory entityManagerFactory, PersistenceSettings settings) {
+        String prefix = "jpa.readmodel.product-names.";
+        return open(entityManagerFactory,
+                Path.of(settings.get(prefix + "file", "product-names.snapshot")),
+                Duration.ofMillis(settings.getLong(prefix + "overlap-ms", 5_000)),
+                settings.getLong(prefix + "refresh-interval-ms", 1_000),
+                settings.getLong(prefix + "rebuild-interval-ms", 3_600_000));
+    }
+
+    // ----------------------------- reads -----------------------------
+
+    // Null when the ID is not in the snapshot.
+    public String nameOf(long id) {
+        long start = System.nanoTime();
+        String name = null;
+        long stamp = lock.tryOptimisticRead();
+        try {
+            name = find(buffer, id);
+        } catch (RuntimeException e) {
+            stamp = 0;  // read while a refresh was writing, read again below
+        }
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                name = find(buffer, id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        lookups.record(System.nanoTime() - start);
+        return name;
+    }
+
+    public Duration getSnapshotAge() {
+        long refreshedAt = buffer.getLong(REFRESHED_AT);
+        return Duration.ofMillis(Math.max(0, System.currentTimeMillis() - refreshedAt));
+    }
+
+    public SnapshotStats getStats() {
+        MappedByteBuffer current = buffer;
+        return new SnapshotStats(current.getInt(SIZE), current.getInt(CAPACITY), current.capacity(), getSnapshotAge(),
+                lookups.getCount(), lookups.percentileNanos(50), lookups.percentileNanos(99), lookups.getMaxNanos());
+    }
+
+    private static String find(MappedByteBuffer buffer, long id) {
+        int capacity = buffer.getInt(CAPACITY);
+        int mask = capacity - 1;
+        int slot = hash(id) & mask;
+        for (int probe = 0; probe < capacity; probe++) {
+            int position = HEADER + slot * SLOT;
+            long key = buffer.getLong(position);
+            if (key == EMPTY) {
+                return null;
+            }
+            if (key == id) {
+                byte[] name = new byte[buffer.getInt(position + 12)];
+                buffer.get(buffer.getInt(position + 8), name);
+                return new String(name, StandardCharsets.UTF_8);
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // ----------------------------- refresh -----------------------------
+
+    // Incremental refresh every refreshInterval, full rebuild every rebuildInterval, on a daemon thread.
+    public synchronized void startAutoRefresh() {
+        if (refresher != null) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-name-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(() -> run(this::refresh), 0, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+        refresher.scheduleWithFixedDelay(() -> run(this::rebuild), rebuildIntervalMillis, rebuildIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void run(Runnable refresh) {
+        try {
+            refresh.run();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Product name snapshot refresh failed, serving the previous snapshot", e);
+        }
+    }
+
+    // Reads the products changed since the last refresh. Returns the number of rows read.
+    public synchronized int refresh() {
+        long cursor = buffer.getLong(CURSOR);
+        Instant since = cursor == EMPTY ? Instant.EPOCH : toInstant(cursor).minus(overlap);
+        long newest = cursor;
+        int rows = 0;
+
+        Instant afterTime = since;
+        long afterId = Long.MIN_VALUE;
+        boolean dirty = false;
+        while (true) {
+            List<ProductChange> page = readPage(
+                    "where e.updatedAt > :time or (e.updatedAt = :time and e.id > :id) order by e.updatedAt, e.id",
+                    afterTime, afterId);
+            if (!page.isEmpty() && !dirty) {
+                markDirty();
+                dirty = true;
+            }
+            // One write lock per page: lookups wait at most for one page, never for the whole refresh.
+            long stamp = lock.writeLock();
+            try {
+                for (ProductChange change : page) {
+                    buffer = put(buffer, file, change);
+                    newest = Math.max(newest, toMicros(change.updatedAt()));
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            rows += page.size();
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+            ProductChange last = page.get(page.size() - 1);
+            afterTime = last.updatedAt();
+            afterId = last.id();
+        }
+        finish(newest);
+        return rows;
+    }
+
+    // Reads every product into a new file and swaps it in, which also drops deleted products.
+    // Lookups keep using the current snapshot until the new one is complete.
+    public synchronized void rebuild() {
+        long count;
+        long bytes;
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            count = entityManager.createQuery("select count(p) from Product p", Long.class).getSingleResult();
+            Long length = entityManager.createQuery("select sum(length(p.name)) from Product p", Long.class).getSingleResult();
+            bytes = length == null ? 0 : length;
+        } finally {
+            entityManager.close();
+        }
+
+        // Products changed while the rebuild reads are picked up by the next refresh, whose cursor starts
+        // before the rebuild.
+        long started = toMicros(Instant.now());
+        Path building = file.resolveSibling(file.getFileName() + ".building");
+        MappedByteBuffer next = create(building, capacityFor(count), dataCapacityFor(bytes));
+        long afterId = Long.MIN_VALUE;
+        while (true) {
+            List<ProductChange> page = readPage("where e.id > :id order by e.id", null, afterId);
+            for (ProductChange change : page) {
+                next = put(next, building, change);
+            }
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).id();
+        }
+        next.putLong(CURSOR, started);
+        next.putLong(REFRESHED_AT, System.currentTimeMillis());
+        next.putInt(DIRTY, 0);
+        next.force();
+
+        long stamp = lock.writeLock();
+        try {
+            Files.move(building, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            buffer = next;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error replacing " + file, e);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private List<ProductChange> readPage(String clauses, Instant afterTime, long afterId) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            Projections.ProjectionQuery<ProductChange> query = Projections.query(entityManager, Product.class, ProductChange.class, clauses)
+                    .setParameter("id", afterId)
+                    .setMaxResults(PAGE_SIZE);
+            if (afterTime != null) {
+                query.setParameter("time", afterTime);
+            }
+            return query.getResultList();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    // Inserts or replaces one name. Returns the buffer to continue with, a larger one when the table or the
+    // name area was full.
+    private static MappedByteBuffer put(MappedByteBuffer buffer, Path path, ProductChange change) {
+        if (change.name() == null) {
+            return buffer;
+        }
+        byte[] name = change.name().getBytes(StandardCharsets.UTF_8);
+        if (buffer.getLong(DATA_END) + name.length > buffer.capacity()
+                || buffer.getInt(SIZE) + 1 > buffer.getInt(CAPACITY) * MAX_LOAD) {
+            buffer = grow(buffer, path, name.length);
+        }
+        put(buffer, change.id(), name);
+        return buffer;
+    }
+
+    private static void put(MappedByteBuffer buffer, long id, byte[] name) {
+        int mask = buffer.getInt(CAPACITY) - 1;
+        int slot = hash(id) & mask;
+        while (true) {
+            int position = HEADER + slot * SLOT;
+            long key = buffer.getLong(position);
+            if (key == id && sameName(buffer, position, name)) {
+                return;
+            }
+            if (key == EMPTY || key == id) {
+                int dataEnd = (int) buffer.getLong(DATA_END);
+                buffer.put(dataEnd, name);
+                buffer.putLong(DATA_END, dataEnd + name.length);
+                buffer.putInt(position + 8, dataEnd);
+                buffer.putInt(position + 12, name.length);
+                if (key == EMPTY) {
+                    buffer.putLong(position, id);
+                    buffer.putInt(SIZE, buffer.getInt(SIZE) + 1);
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static boolean sameName(MappedByteBuffer buffer, int position, byte[] name) {
+        if (buffer.getInt(position + 12) != name.length) {
+            return false;
+        }
+        int offset = buffer.getInt(position + 8);
+        for (int i = 0; i < name.length; i++) {
+            if (buffer.get(offset + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Copies the live entries into a new file with room for twice as many (replaced names are dropped on the
+    // way) and puts it in place of path.
+    private static MappedByteBuffer grow(MappedByteBuffer current, Path path, int extraBytes) {
+        int capacity = current.getInt(CAPACITY);
+        long liveBytes = extraBytes;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (current.getLong(HEADER + slot * SLOT) != EMPTY) {
+                liveBytes += current.getInt(HEADER + slot * SLOT + 12);
+            }
+        }
+        Path growing = path.resolveSibling(path.getFileName() + ".growing");
+        MappedByteBuffer next = create(growing, capacityFor(current.getInt(SIZE) + 1L), dataCapacityFor(liveBytes));
+        for (int slot = 0; slot < capacity; slot++) {
+            int position = HEADER + slot * SLOT;
+            long key = current.getLong(position);
+            if (key != EMPTY) {
+                byte[] name = new byte[current.getInt(position + 12)];
+                current.get(current.getInt(position + 8), name);
+                put(next, key, name);
+            }
+        }
+        next.putLong(CURSOR, current.getLong(CURSOR));
+        next.putLong(REFRESHED_AT, current.getLong(REFRESHED_AT));
+        try {
+            Files.move(growing, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error growing " + path, e);
+        }
+        return next;
+    }
+
+    // The flag has to be on disk before the first slot or name page changes: otherwise a crash could leave a
+    // half-written file whose header still says it is complete, and mapExisting() would use it.
+    private void markDirty() {
+        long stamp = lock.writeLock();
+        try {
+            buffer.putInt(DIRTY, 1);
+            buffer.force(DIRTY, Integer.BYTES);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Records the refresh and writes the pages to disk, so a restart finds a complete snapshot.
+    private void finish(long cursor) {
+        long stamp = lock.writeLock();
+        try {
+            buffer.putLong(CURSOR, cursor);
+            buffer.putLong(REFRESHED_AT, System.currentTimeMillis());
+            buffer.force();
+            buffer.putInt(DIRTY, 0);
+            buffer.force();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // ----------------------------- files -----------------------------
+
+    // Power of two, at most MAX_LOAD full with twice the current rows.
+    private static int capacityFor(long rows) {
+        long wanted = Math.max(1024, (long) Math.ceil(rows * 2 / MAX_LOAD));
+        long capacity = Long.highestOneBit(wanted - 1) << 1;
+        if (HEADER + capacity * SLOT > Integer.MAX_VALUE / 2) {
+            throw new IllegalStateException("Too many products for a snapshot file: " + rows);
+        }
+        return (int) capacity;
+    }
+
+    private static long dataCapacityFor(long bytes) {
+        return bytes * 2 + 1024 * 1024;
+    }
+
+    private static MappedByteBuffer create(Path path, int capacity, long dataCapacity) {
+        long size = HEADER + (long) capacity * SLOT + dataCapacity;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Product name snapshot would exceed 2 GB");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(CAPACITY, capacity);
+            buffer.putInt(SIZE, 0);
+            buffer.putLong(DATA_END, HEADER + (long) capacity * SLOT);
+            buffer.putLong(CURSOR, EMPTY);
+            buffer.putLong(REFRESHED_AT, 0);
+            buffer.putInt(DIRTY, 1);
+            for (int slot = 0; slot < capacity; slot++) {
+                buffer.putLong(HEADER + slot * SLOT, EMPTY);
+            }
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error creating " + path, e);
+        }
+    }
+
+    // Null when there is no usable snapshot: missing, of another format, or left dirty by a crash.
+    private MappedByteBuffer mapExisting() {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            return mapped.getInt(0) == MAGIC && mapped.getInt(DIRTY) == 0 ? mapped : null;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Ignoring unreadable product name snapshot " + file, e);
+            return null;
+        }
+    }
+
+    private static long toMicros(Instant instant) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    private static Instant toInstant(long micros) {
+        return Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.readmodel;
+
+import java.time.Duration;
+
+// State of a ProductNameSnapshot. age is the time since the last successful refresh.
+public record SnapshotStats(int entries, int capacity, long fileBytes, Duration age,
+                            long lookups, long p50Nanos, long p99Nanos, long maxNanos) {
+
+    @Override
+    public String toString() {
+        return String.format("%d entries (capacity %d, %d KB), age %d ms, %d lookups p50=%dns p99=%dns max=%dns",
+                entries, capacity, fileBytes / 1024, age.toMillis(), lookups, p50Nanos, p99Nanos, maxNanos);
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.sharding;
+
+import org.example.metrics.LatencyHistogram;
+
+// Latency of the work ShardedStockStore sent to one shard (one value per routed call or fan-out part).
+public record ShardStats(String shard, long calls, long p50Nanos, long p99Nanos, long maxNanos) {
+
+    static ShardStats of(String shard, LatencyHistogram histogram) {
+        return new ShardStats(shard, histogram.getCount(), histogram.percentileNanos(50),
+                histogram.percentileNanos(99), histogram.getMaxNanos());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d calls, p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                shard, calls, p50Nanos / 1_000_000.0, p99Nanos / 1_000_000.0, maxNanos / 1_000_000.0);
+    }
+}
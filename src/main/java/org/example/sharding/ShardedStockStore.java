@@ -0,0 +1,268 @@
+package org.example.sharding;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entities.Stock;
+import org.example.entities.keys.StockKeys;
+import org.example.metrics.LatencyHistogram;
+import org.example.persistence.CustomPersistenceUnitInfo;
+import org.example.persistence.PersistenceSettings;
+import org.example.queries.StockLookup;
+import org.hibernate.jpa.HibernatePersistenceProvider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+// Spreads Stock over several databases ("shards"), each with its own EntityManagerFactory and pool.
+//
+// A stock lives on shard floorMod(code.hashCode(), shardCount), the same partitioning as StockImporter, so all
+// numbers of one code are on one shard and single-stock work is a normal local transaction there.
+// String.hashCode() is specified by the JDK, so the mapping is the same in every JVM. Changing the number of
+// shards moves most codes, which needs a re-import.
+//
+// Work that needs all shards (queries without a code) is sent to every shard in parallel on virtual threads,
+// and the results are concatenated, or merged in order and cut with queryAll(..., comparator, limit).
+// Every call records its latency per shard, see getStats().
+//
+// The shards are configured in jpa.properties (jpa.shards, jpa.shard.<name>.url ...). Local databases work
+// as well, e.g. in-memory H2:
+//    -Djpa.shards=s0,s1,s2 -Djpa.shard.s0.url=jdbc:h2:mem:s0;DB_CLOSE_DELAY=-1 ...
+//
+// Example:
+//    try (ShardedStockStore store = new ShardedStockStore(PersistenceSettings.load(), Map.of())) {
+//        store.persist(stock);
+//        Stock found = store.find(new StockKeys("A-1", 7));
+//        List<Stock> red = store.queryAll(entityManager -> entityManager
+//                .createQuery("select s from Stock s where s.color = 'red'", Stock.class).getResultList());
+//    }
+public class ShardedStockStore implements AutoCloseable {
+
+    private final List<String> names = new ArrayList<>();
+    private final List<EntityManagerFactory> factories = new ArrayList<>();
+    private final List<CustomPersistenceUnitInfo> units = new ArrayList<>();
+    private final List<LatencyHistogram> latencies = new ArrayList<>();
+    private final StockLookup lookup;
+    private final ExecutorService fanOut = Executors.newVirtualThreadPerTaskExecutor();
+
+    // extraProperties are passed to every EntityManagerFactory, e.g. hibernate.hbm2ddl.auto.
+    public ShardedStockStore(PersistenceSettings settings, Map<String, ?> extraProperties) {
+        String shards = settings.get("jpa.shards", "");
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("No shards configured (jpa.shards)");
+        }
+        String unitName = settings.get("jpa.persistence-unit.name", "my-persistence-unit");
+        this.lookup = new StockLookup(settings);
+
+        try {
+            for (String shard : shards.split(",")) {
+                String name = shard.trim();
+                String prefix = "jpa.shard." + name + ".";
+                PersistenceSettings shardSettings = settings
+                        .with("jpa.persistence-unit.name", unitName + "-" + name)
+                        .with("jpa.datasource.url", settings.get(prefix + "url", null))
+                        .with("jpa.datasource.username", settings.get(prefix + "username", settings.get("jpa.datasource.username", "")))
+                        .with("jpa.datasource.password", settings.get(prefix + "password", settings.get("jpa.datasource.password", "")))
+                        // Reads of a shard stay on the shard.
+                        .with("jpa.datasource.replica.url", settings.get(prefix + "replica.url", ""));
+                if (shardSettings.get("jpa.datasource.url", null) == null) {
+                    throw new IllegalArgumentException("No URL for shard " + name + " (" + prefix + "url)");
+                }
+
+                CustomPersistenceUnitInfo unit = new CustomPersistenceUnitInfo(shardSettings);
+                units.add(unit);
+                factories.add(new HibernatePersistenceProvider().createContainerEntityManagerFactory(unit, new HashMap<>(extraProperties)));
+                names.add(name);
+                latencies.add(new LatencyHistogram());
+            }
+        } catch (RuntimeException e) {
+            releaseShards();
+            throw e;
+        }
+    }
+
+    public int getShardCount() {
+        return factories.size();
+    }
+
+    public int shardFor(String code) {
+        return Math.floorMod(code.hashCode(), factories.size());
+    }
+
+    public EntityManagerFactory getEntityManagerFactory(int shard) {
+        return factories.get(shard);
+    }
+
+    // ----------------------------- routed by code -----------------------------
+
+    public Stock find(StockKeys keys) {
+        return inShard(keys.getCode(), false, entityManager -> entityManager.find(Stock.class, keys));
+    }
+
+    public void persist(Stock stock) {
+        inShard(stock.getCode(), true, entityManager -> {
+            entityManager.persist(stock);
+            return null;
+        });
+    }
+
+    public Stock merge(Stock stock) {
+        return inShard(stock.getCode(), true, entityManager -> entityManager.merge(stock));
+    }
+
+    public boolean remove(StockKeys keys) {
+        return inShard(keys.getCode(), true, entityManager -> {
+            Stock stock = entityManager.find(Stock.class, keys);
+            if (stock != null) {
+                entityManager.remove(stock);
+            }
+            return stock != null;
+        });
+    }
+
+    // Runs the work in one transaction on the shard of the code. The returned entities are detached.
+    public <R> R inShard(String code, Function<EntityManager, R> work) {
+        return inShard(code, true, work);
+    }
+
+    // Looks the keys up on their shards in parallel, one StockLookup per shard.
+    public Map<StockKeys, Stock> findAll(Collection<StockKeys> keys) {
+        Map<Integer, List<StockKeys>> byShard = new HashMap<>();
+        for (StockKeys key : keys) {
+            byShard.computeIfAbsent(shardFor(key.getCode()), shard -> new ArrayList<>()).add(key);
+        }
+        Map<StockKeys, Stock> result = new HashMap<>();
+        for (Map<StockKeys, Stock> part : fanOut(byShard.keySet(), shard ->
+                run(shard, false, entityManager -> lookup.findAll(entityManager, byShard.get(shard))))) {
+            result.putAll(part);
+        }
+        return result;
+    }
+
+    // ----------------------------- fan-out -----------------------------
+
+    // Runs a read on every shard in parallel and concatenates the results in shard order.
+    public <T> List<T> queryAll(Function<EntityManager, List<T>> query) {
+        List<T> result = new ArrayList<>();
+        allShards(query).forEach(result::addAll);
+        return result;
+    }
+
+    // For "order by ... limit n" across shards: every shard's query must return its rows sorted by the same
+    // comparator (and at most limit of them), the sorted lists are merged and cut to limit.
+    public <T> List<T> queryAll(Function<EntityManager, List<T>> query, Comparator<? super T> comparator, int limit) {
+        List<List<T>> parts = allShards(query);
+        List<T> result = new ArrayList<>(limit);
+        int[] positions = new int[parts.size()];
+        while (result.size() < limit) {
+            int next = -1;
+            for (int shard = 0; shard < parts.size(); shard++) {
+                if (positions[shard] < parts.get(shard).size() && (next < 0
+                        || comparator.compare(parts.get(shard).get(positions[shard]), parts.get(next).get(positions[next])) < 0)) {
+                    next = shard;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            result.add(parts.get(next).get(positions[next]++));
+        }
+        return result;
+    }
+
+    // Sums a count (or any long) over all shards.
+    public long countAll(Function<EntityManager, Long> count) {
+        long total = 0;
+        for (Long part : fanOut(allShardIndexes(), shard -> run(shard, false, count))) {
+            total += part;
+        }
+        return total;
+    }
+
+    public List<ShardStats> getStats() {
+        List<ShardStats> stats = new ArrayList<>();
+        for (int shard = 0; shard < names.size(); shard++) {
+            stats.add(ShardStats.of(names.get(shard), latencies.get(shard)));
+        }
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        releaseShards();
+    }
+
+    // Private, so the constructor can clean up after a failed shard without calling an overridable method.
+    private void releaseShards() {
+        fanOut.close();
+        factories.forEach(EntityManagerFactory::close);
+        units.forEach(unit -> unit.getDataSourceManager().close());
+    }
+
+    // ----------------------------- internals -----------------------------
+
+    private <T> List<List<T>> allShards(Function<EntityManager, List<T>> query) {
+        return fanOut(allShardIndexes(), shard -> run(shard, false, query));
+    }
+
+    private List<Integer> allShardIndexes() {
+        List<Integer> shards = new ArrayList<>();
+        for (int shard = 0; shard < factories.size(); shard++) {
+            shards.add(shard);
+        }
+        return shards;
+    }
+
+    private <R> List<R> fanOut(Collection<Integer> shards, Function<Integer, R> work) {
+        List<Future<R>> futures = new ArrayList<>();
+        for (Integer shard : shards) {
+            futures.add(fanOut.submit(() -> work.apply(shard)));
+        }
+        List<R> results = new ArrayList<>();
+        try {
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new RuntimeException(e.getCause());
+        }
+        return results;
+    }
+
+    private <R> R inShard(String code, boolean transactional, Function<EntityManager, R> work) {
+        return run(shardFor(code), transactional, work);
+    }
+
+    private <R> R run(int shard, boolean transactional, Function<EntityManager, R> work) {
+        long start = System.nanoTime();
+        EntityManager entityManager = factories.get(shard).createEntityManager();
+        try {
+            if (!transactional) {
+                return work.apply(entityManager);
+            }
+            entityManager.getTransaction().begin();
+            R result = work.apply(entityManager);
+            entityManager.getTransaction().commit();
+            return result;
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+            latencies.get(shard).record(System.nanoTime() - start);
+        }
+    }
+}
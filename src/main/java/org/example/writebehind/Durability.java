@@ -0,0 +1,16 @@
+package org.example.writebehind;
+
+// What an acknowledged EmployeeWriteBehind update survives.
+public enum Durability {
+
+    // Only in memory: updates that are not flushed yet are lost if the process dies. Fastest.
+    MEMORY,
+
+    // Every update is appended to a local journal file (and forced to disk) before update() returns.
+    // After a crash the journal is replayed on the next start, so the update survives a process crash.
+    JOURNAL,
+
+    // update() returns only after the batch containing the change is committed to the database.
+    // Concurrent updates are still coalesced and written together (group commit).
+    WRITE_THROUGH
+}
@@ -0,0 +1,555 @@
+package org.example.writebehind;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entities.Employee;
+import org.example.persistence.PersistenceSettings;
+import org.hibernate.Session;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Optional write-behind layer for frequent updates of the same Employee rows.
+//
+// Instead of "find, setName, commit" per change (see Main), updates are put into an in-memory map keyed by the
+// employee ID. A second change of the same row replaces the first one in the map, so a row that changes
+// 50 times between two flushes is written once. A background thread writes the map as JDBC batches of
+// "update employee set ... where id = ?" in one transaction, when flushSize rows are pending or every
+// flushIntervalMillis, whichever comes first. Rows are written in ID order, so two flushes never lock the same
+// rows in a different order.
+//
+// Reading your own writes: find() returns the employee with the pending changes applied. Other code that
+// reads Employee through JPA or SQL sees the change only after the flush.
+//
+// With WRITE_THROUGH every row has its own outcome: update() returns once that row is committed, fails when
+// the row ends up in the dead letters, and keeps waiting while the row is queued for a retry.
+//
+// Failures: a failed flush is retried after a backoff that doubles up to maxBackoffMillis. Connection problems,
+// timeouts and deadlocks retry the whole batch. Any other error (a constraint violation, a value too long) is
+// caused by a row, so the rows are then written one by one: the others go through, and a row that is rejected
+// maxRowAttempts times is taken out and kept in getDeadLetters() instead of blocking every later flush.
+//
+// Back-pressure: at most maxPending rows can wait for a flush. update*() on a new row then blocks until the
+// flusher has taken a batch, and fails after offerTimeoutMillis. Changes of rows already pending never block.
+//
+// The updates bypass the persistence context, so do not mix them with changes of the same employee made
+// through an EntityManager.
+//
+// Example:
+//    EmployeeWriteBehind writeBehind = new EmployeeWriteBehind(entityManagerFactory, settings);
+//    writeBehind.updateAddress(employeeId, "Ankara");
+//    ...
+//    writeBehind.close();   // writes what is still pending
+public class EmployeeWriteBehind implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(EmployeeWriteBehind.class.getName());
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final int maxPending;
+    private final int flushSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final int maxRowAttempts;
+    private final long maxBackoffMillis;
+    private final Durability durability;
+    private final WriteJournal journal;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushNeeded = lock.newCondition();
+    private Map<Long, PendingUpdate> pending = new HashMap<>();
+    private Map<Long, PendingUpdate> inFlight = Map.of();
+    // WRITE_THROUGH only: the outcome of every pending row, shared by all callers that changed the row.
+    private Map<Long, CompletableFuture<Void>> pendingWritten = new HashMap<>();
+    private long flushGeneration;
+    private final Map<Long, Integer> rowFailures = new HashMap<>();
+    private final Map<Long, PendingUpdate> deadLetters = new LinkedHashMap<>();
+    private int failureStreak;
+    private long retryAtNanos;
+    private volatile boolean running = true;
+
+    private final Thread flusher;
+    private final LongAdder updates = new LongAdder();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    public EmployeeWriteBehind(EntityManagerFactory entityManagerFactory, int maxPending, int flushSize,
+                               long flushIntervalMillis, long offerTimeoutMillis, int maxRowAttempts,
+                               long maxBackoffMillis, Durability durability, Path journalFile) {
+        if (flushSize < 1 || maxPending < flushSize) {
+            throw new IllegalArgumentException("Need 1 <= flushSize <= maxPending");
+        }
+        if (maxRowAttempts < 1) {
+            throw new IllegalArgumentException("maxRowAttempts must be positive: " + maxRowAttempts);
+        }
+        this.entityManagerFactory = entityManagerFactory;
+        this.maxPending = maxPending;
+        this.flushSize = flushSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.maxRowAttempts = maxRowAttempts;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.durability = durability;
+        // Changes journaled by a previous run are written with the first flush.
+        this.journal = durability == Durability.JOURNAL ? WriteJournal.open(journalFile, pending) : null;
+
+        this.flusher = new Thread(this::flushLoop, "employee-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public EmployeeWriteBehind(EntityManagerFactory entityManagerFactory, PersistenceSettings settings) {
+        this(entityManagerFactory,
+                settings.getInt("jpa.write-behind.max-pending", 10_000),
+                settings.getInt("jpa.write-behind.flush-size", 500),
+                settings.getLong("jpa.write-behind.flush-interval-ms", 200),
+                settings.getLong("jpa.write-behind.offer-timeout-ms", 5_000),
+                settings.getInt("jpa.write-behind.max-row-attempts", 3),
+                settings.getLong("jpa.write-behind.max-backoff-ms", 30_000),
+                Durability.valueOf(settings.get("jpa.write-behind.durability", "MEMORY").trim().toUpperCase()),
+                Path.of(settings.get("jpa.write-behind.journal", "employee-write-behind.journal")));
+    }
+
+    public void updateName(long id, String name) {
+        update(id, PendingUpdate.name(name));
+    }
+
+    public void updateAddress(long id, String address) {
+        update(id, PendingUpdate.address(address));
+    }
+
+    // The employee as it will be after the pending changes are written, or null if it does not exist.
+    // The row is read with an EntityManager of its own, so the returned entity is detached and changing it has
+    // no effect; entities managed by the caller are never touched.
+    //
+    // A flush that commits between the database read and the look at inFlight/pending would leave the change in
+    // neither, so the row is read again when flushGeneration moved in the meantime.
+    public Employee find(long id) {
+        Employee employee;
+        PendingUpdate change;
+        while (true) {
+            long generation;
+            lock.lock();
+            try {
+                generation = flushGeneration;
+            } finally {
+                lock.unlock();
+            }
+
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            try {
+                employee = entityManager.find(Employee.class, id);
+            } finally {
+                entityManager.close();
+            }
+            if (employee == null) {
+                return null;
+            }
+
+            lock.lock();
+            try {
+                if (generation == flushGeneration) {
+                    change = merge(inFlight.get(id), pending.get(id));
+                    break;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (change != null) {
+            if (change.isNameSet()) {
+                employee.setName(change.getName());
+            }
+            if (change.isAddressSet()) {
+                employee.setAddress(change.getAddress());
+            }
+        }
+        return employee;
+    }
+
+    public WriteBehindStats getStats() {
+        lock.lock();
+        try {
+            return new WriteBehindStats(updates.sum(), rowsWritten.get(), flushes.get(), failedFlushes.get(),
+                    deadLetters.size(), pending.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Changes the database rejected maxRowAttempts times, by employee ID. They are not retried.
+    public Map<Long, PendingUpdate> getDeadLetters() {
+        lock.lock();
+        try {
+            return new LinkedHashMap<>(deadLetters);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(long id, PendingUpdate change) {
+        CompletableFuture<Void> written;
+        lock.lock();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+            while (!pending.containsKey(id) && pending.size() >= maxPending) {
+                if (!running) {
+                    throw new IllegalStateException("EmployeeWriteBehind is closed");
+                }
+                flushNeeded.signal();
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Write-behind buffer full: " + maxPending + " rows pending for " + offerTimeoutMillis + " ms");
+                }
+                notFull.awaitNanos(remaining);
+            }
+            if (!running) {
+                throw new IllegalStateException("EmployeeWriteBehind is closed");
+            }
+            if (journal != null) {
+                journal.append(id, change);
+            }
+            pending.merge(id, change, PendingUpdate::then);
+            updates.increment();
+            // WRITE_THROUGH callers are waiting, so there is no point in waiting for the interval. Changes that
+            // arrive while a batch is being written still form the next batch.
+            if (pending.size() >= flushSize || durability == Durability.WRITE_THROUGH) {
+                flushNeeded.signal();
+            }
+            written = durability == Durability.WRITE_THROUGH
+                    ? pendingWritten.computeIfAbsent(id, key -> new CompletableFuture<>()) : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write-behind buffer", e);
+        } finally {
+            lock.unlock();
+        }
+
+        if (durability == Durability.WRITE_THROUGH) {
+            awaitWritten(written);
+        }
+    }
+
+    private void awaitWritten(CompletableFuture<Void> written) {
+        try {
+            written.get(offerTimeoutMillis + flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Update not written to the database yet, it stays queued", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write", e);
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            Batch batch;
+            lock.lock();
+            try {
+                // After a failure nothing is written before the backoff ends, however full pending is.
+                long backoff = retryAtNanos - System.nanoTime();
+                if (running && backoff > 0) {
+                    flushNeeded.awaitNanos(backoff);
+                    continue;
+                }
+                boolean waiters = durability == Durability.WRITE_THROUGH && !pending.isEmpty();
+                if (running && pending.size() < flushSize && !waiters) {
+                    flushNeeded.await(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                }
+                batch = takeBatch();
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                lock.unlock();
+            }
+            if (batch != null) {
+                write(batch);
+            }
+        }
+    }
+
+    // Swaps the pending map for an empty one. Called with the lock held.
+    private Batch takeBatch() {
+        if (pending.isEmpty()) {
+            return null;
+        }
+        Batch batch = new Batch(new TreeMap<>(pending), pendingWritten);
+        inFlight = batch.rows();
+        pending = new HashMap<>();
+        pendingWritten = new HashMap<>();
+        if (journal != null) {
+            journal.rotate();
+        }
+        notFull.signalAll();
+        return batch;
+    }
+
+    private void write(Batch batch) {
+        try {
+            writeRows(batch.rows());
+            rowsWritten.addAndGet(batch.rows().size());
+            flushes.incrementAndGet();
+            lock.lock();
+            try {
+                inFlight = Map.of();
+                flushGeneration++;
+                failureStreak = 0;
+                rowFailures.keySet().removeAll(batch.rows().keySet());
+                if (journal != null) {
+                    journal.release();
+                }
+            } finally {
+                lock.unlock();
+            }
+            batch.written().values().forEach(written -> written.complete(null));
+        } catch (RuntimeException e) {
+            failedFlushes.incrementAndGet();
+            Map<Long, PendingUpdate> rejected = new HashMap<>();
+            Map<Long, PendingUpdate> unwritten = isTransient(e) ? batch.rows() : writeOneByOne(batch.rows(), rejected);
+            rowsWritten.addAndGet(batch.rows().size() - unwritten.size());
+
+            Map<Long, PendingUpdate> deadLettered = new HashMap<>();
+            long backoffMillis;
+            int streak;
+            lock.lock();
+            try {
+                unwritten = new TreeMap<>(unwritten);
+                for (Map.Entry<Long, PendingUpdate> entry : rejected.entrySet()) {
+                    long id = entry.getKey();
+                    if (rowFailures.merge(id, 1, Integer::sum) >= maxRowAttempts) {
+                        rowFailures.remove(id);
+                        unwritten.remove(id);
+                        deadLetters.put(id, entry.getValue());
+                        deadLettered.put(id, entry.getValue());
+                        LOGGER.log(Level.SEVERE, "Employee " + id + " rejected " + maxRowAttempts
+                                + " times, moved to the dead letters: " + entry.getValue());
+                    }
+                }
+                // Put the changes back in front of anything that was queued meanwhile.
+                unwritten.forEach((id, change) -> pending.merge(id, change, (newer, older) -> older.then(newer)));
+                // Callers of the re-queued rows wait for the row's next attempt. When the row was changed again
+                // meanwhile, that change is now part of the same pending row and shares its outcome.
+                for (long id : unwritten.keySet()) {
+                    CompletableFuture<Void> written = batch.written().remove(id);
+                    if (written != null) {
+                        CompletableFuture<Void> retry = pendingWritten.putIfAbsent(id, written);
+                        if (retry != null) {
+                            retry.whenComplete((ignored, error) -> complete(written, error));
+                        }
+                    }
+                }
+                if (journal != null) {
+                    journal.rewrite(pending);
+                    journal.release();
+                }
+                inFlight = Map.of();
+                // Rows written one by one are committed, find() has to read them again.
+                flushGeneration++;
+                // Nothing to retry when the rows that failed were all moved to the dead letters.
+                failureStreak = unwritten.isEmpty() ? 0 : failureStreak + 1;
+                backoffMillis = unwritten.isEmpty() ? 0
+                        : Math.min(maxBackoffMillis, Math.max(flushIntervalMillis, 100) << Math.min(failureStreak - 1, 20));
+                retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+                streak = failureStreak;
+            } finally {
+                lock.unlock();
+            }
+
+            String message = "Write-behind flush of " + batch.rows().size() + " employees failed, " + unwritten.size()
+                    + " rows retried in " + backoffMillis + " ms";
+            // The stack trace once per outage, a single line for the retries.
+            if (streak == 0) {
+                LOGGER.log(Level.WARNING, "Write-behind flush of " + batch.rows().size() + " employees failed, the other rows were written one by one");
+            } else if (streak == 1) {
+                LOGGER.log(Level.WARNING, message, e);
+            } else {
+                LOGGER.log(Level.WARNING, message + " (failure " + streak + " in a row: " + e + ")");
+            }
+            // The rows left in the batch were either written one by one or moved to the dead letters.
+            batch.written().forEach((id, written) -> {
+                if (deadLettered.containsKey(id)) {
+                    written.completeExceptionally(new IllegalStateException("Employee " + id + " was rejected "
+                            + maxRowAttempts + " times and moved to the dead letters: " + deadLettered.get(id), e));
+                } else {
+                    written.complete(null);
+                }
+            });
+        }
+    }
+
+    private static void complete(CompletableFuture<Void> written, Throwable error) {
+        if (error == null) {
+            written.complete(null);
+        } else {
+            written.completeExceptionally(error);
+        }
+    }
+
+    // Writes each row in its own transaction after a batch failed because of its data. Returns the rows that
+    // were not written; the ones the database rejected are also put into rejected. Stops at the first
+    // transient error, the rest is retried later.
+    private Map<Long, PendingUpdate> writeOneByOne(Map<Long, PendingUpdate> rows, Map<Long, PendingUpdate> rejected) {
+        Map<Long, PendingUpdate> unwritten = new HashMap<>();
+        boolean stopped = false;
+        for (Map.Entry<Long, PendingUpdate> entry : rows.entrySet()) {
+            if (stopped) {
+                unwritten.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+            try {
+                writeRows(Map.of(entry.getKey(), entry.getValue()));
+            } catch (RuntimeException e) {
+                unwritten.put(entry.getKey(), entry.getValue());
+                if (isTransient(e)) {
+                    stopped = true;
+                } else {
+                    rejected.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return unwritten;
+    }
+
+    // Connection problems, timeouts, deadlocks and serialization failures go away on their own. Any other
+    // SQL error (SQLSTATE classes 22 and 23: bad data, constraint violations) fails again for the same row.
+    private static boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException) {
+                String state = sqlException.getSQLState();
+                return state == null || state.startsWith("08") || state.startsWith("40") || state.startsWith("57");
+            }
+        }
+        return true;
+    }
+
+    private void writeRows(Map<Long, PendingUpdate> rows) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            entityManager.unwrap(Session.class).doWork(connection -> writeRows(connection, rows));
+            entityManager.getTransaction().commit();
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+        }
+    }
+
+    // Up to three statement shapes, depending on which columns changed.
+    private void writeRows(Connection connection, Map<Long, PendingUpdate> rows) throws SQLException {
+        try (PreparedStatement both = connection.prepareStatement("update employee set name = ?, address = ? where id = ?");
+             PreparedStatement nameOnly = connection.prepareStatement("update employee set name = ? where id = ?");
+             PreparedStatement addressOnly = connection.prepareStatement("update employee set address = ? where id = ?")) {
+            for (Map.Entry<Long, PendingUpdate> entry : rows.entrySet()) {
+                PendingUpdate change = entry.getValue();
+                PreparedStatement statement;
+                int index = 1;
+                if (change.isNameSet() && change.isAddressSet()) {
+                    statement = both;
+                    statement.setString(index++, change.getName());
+                    statement.setString(index++, change.getAddress());
+                } else if (change.isNameSet()) {
+                    statement = nameOnly;
+                    statement.setString(index++, change.getName());
+                } else {
+                    statement = addressOnly;
+                    statement.setString(index++, change.getAddress());
+                }
+                statement.setLong(index, entry.getKey());
+                statement.addBatch();
+            }
+            both.executeBatch();
+            nameOnly.executeBatch();
+            addressOnly.executeBatch();
+        }
+    }
+
+    private static PendingUpdate merge(PendingUpdate older, PendingUpdate newer) {
+        if (older == null) {
+            return newer;
+        }
+        return newer == null ? older : older.then(newer);
+    }
+
+    // Stops the flusher and writes what is still pending. With JOURNAL, changes that cannot be written
+    // stay in the journal for the next start.
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            running = false;
+            flushNeeded.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Batch batch;
+        lock.lock();
+        try {
+            batch = takeBatch();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (batch != null) {
+                try {
+                    writeRows(batch.rows());
+                } catch (RuntimeException e) {
+                    batch.written().values().forEach(written -> written.completeExceptionally(
+                            new IllegalStateException("EmployeeWriteBehind closed before the update was written", e)));
+                    throw e;
+                }
+                rowsWritten.addAndGet(batch.rows().size());
+                flushes.incrementAndGet();
+                if (journal != null) {
+                    journal.release();
+                }
+                batch.written().values().forEach(written -> written.complete(null));
+            }
+        } finally {
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Error closing write-behind journal", e);
+                }
+            }
+        }
+    }
+
+    // written holds the WRITE_THROUGH outcomes of the rows, empty otherwise.
+    private record Batch(Map<Long, PendingUpdate> rows, Map<Long, CompletableFuture<Void>> written) {
+    }
+}
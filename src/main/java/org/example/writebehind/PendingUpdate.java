@@ -0,0 +1,54 @@
+package org.example.writebehind;
+
+// The not yet written changes of one Employee row. Only the attributes that were set are written,
+// a later change of the same attribute replaces the earlier one.
+public final class PendingUpdate {
+
+    private final boolean nameSet;
+    private final String name;
+    private final boolean addressSet;
+    private final String address;
+
+    PendingUpdate(boolean nameSet, String name, boolean addressSet, String address) {
+        this.nameSet = nameSet;
+        this.name = name;
+        this.addressSet = addressSet;
+        this.address = address;
+    }
+
+    static PendingUpdate name(String name) {
+        return new PendingUpdate(true, name, false, null);
+    }
+
+    static PendingUpdate address(String address) {
+        return new PendingUpdate(false, null, true, address);
+    }
+
+    // This (older) change followed by newer.
+    PendingUpdate then(PendingUpdate newer) {
+        return new PendingUpdate(
+                nameSet || newer.nameSet, newer.nameSet ? newer.name : name,
+                addressSet || newer.addressSet, newer.addressSet ? newer.address : address);
+    }
+
+    public boolean isNameSet() {
+        return nameSet;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isAddressSet() {
+        return addressSet;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    @Override
+    public String toString() {
+        return (nameSet ? "name=" + name : "") + (nameSet && addressSet ? ", " : "") + (addressSet ? "address=" + address : "");
+    }
+}
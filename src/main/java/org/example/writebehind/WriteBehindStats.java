@@ -0,0 +1,16 @@
+package org.example.writebehind;
+
+// Counters of an EmployeeWriteBehind. updates / rowsWritten is how many updates one UPDATE statement saved.
+public record WriteBehindStats(long updates, long rowsWritten, long flushes, long failedFlushes, int deadLetters,
+                               int pending) {
+
+    public double coalescingRatio() {
+        return rowsWritten == 0 ? 0 : (double) updates / rowsWritten;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d updates -> %d rows in %d flushes (%.1fx), %d failed flushes, %d dead letters, %d pending",
+                updates, rowsWritten, flushes, coalescingRatio(), failedFlushes, deadLetters, pending);
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.writebehind;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.Map;
+
+// Append-only file of the updates that are acknowledged but not yet written (Durability.JOURNAL).
+//
+// One line per update: "<id>\t<name>\t<address>", where a field is "." when not set, "~" for null and
+// "+<Base64 of the UTF-8 value>" otherwise.
+// When a batch is taken for writing, the journal is renamed to "<file>.flushing" and a new one is started;
+// the .flushing file is deleted once the batch is committed. Both files are replayed on start.
+final class WriteJournal implements Closeable {
+
+    private final Path file;
+    private final Path flushing;
+    private FileChannel channel;
+
+    private WriteJournal(Path file) {
+        this.file = file;
+        this.flushing = file.resolveSibling(file.getFileName() + ".flushing");
+    }
+
+    // Opens the journal and adds the updates of a previous run to recovered.
+    static WriteJournal open(Path file, Map<Long, PendingUpdate> recovered) {
+        WriteJournal journal = new WriteJournal(file);
+        try {
+            replay(journal.flushing, recovered);
+            replay(file, recovered);
+            // Start over with only the merged changes.
+            journal.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            for (Map.Entry<Long, PendingUpdate> entry : recovered.entrySet()) {
+                journal.write(entry.getKey(), entry.getValue());
+            }
+            journal.channel.force(false);
+            Files.deleteIfExists(journal.flushing);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening write-behind journal " + file, e);
+        }
+        return journal;
+    }
+
+    void append(long id, PendingUpdate update) {
+        try {
+            write(id, update);
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing write-behind journal " + file, e);
+        }
+    }
+
+    // Called with the buffer's lock held, when a batch is taken for writing.
+    void rotate() {
+        try {
+            channel.close();
+            Files.move(file, flushing, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error rotating write-behind journal " + file, e);
+        }
+    }
+
+    // Replaces the current journal with exactly these changes (after a failed flush put a batch back).
+    void rewrite(Map<Long, PendingUpdate> updates) {
+        try {
+            channel.truncate(0);
+            channel.position(0);
+            for (Map.Entry<Long, PendingUpdate> entry : updates.entrySet()) {
+                write(entry.getKey(), entry.getValue());
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing write-behind journal " + file, e);
+        }
+    }
+
+    // The rotated batch is committed, or is part of the current journal again.
+    void release() {
+        try {
+            Files.deleteIfExists(flushing);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error deleting " + flushing, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void write(long id, PendingUpdate update) throws IOException {
+        String line = id + "\t" + field(update.isNameSet(), update.getName())
+                + "\t" + field(update.isAddressSet(), update.getAddress()) + "\n";
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String field(boolean set, String value) {
+        if (!set) {
+            return ".";
+        }
+        return value == null ? "~" : "+" + Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void replay(Path path, Map<Long, PendingUpdate> into) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 3) {
+                    continue;   // torn last line of a crash
+                }
+                PendingUpdate update = new PendingUpdate(
+                        !fields[1].equals("."), value(fields[1]), !fields[2].equals("."), value(fields[2]));
+                into.merge(Long.parseLong(fields[0]), update, PendingUpdate::then);
+            }
+        }
+    }
+
+    private static String value(String field) {
+        if (field.startsWith("+")) {
+            return new String(Base64.getDecoder().decode(field.substring(1)), StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+}
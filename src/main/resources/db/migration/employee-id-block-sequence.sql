@@ -0,0 +1,24 @@
+-- Moves an existing PostgreSQL "employee" table to the IDs of PooledSequenceGenerator.
+--
+-- Employee used GenerationType.AUTO before: an int "id" filled from the sequence "employee_seq" with
+-- INCREMENT BY 50. PooledSequenceGenerator reads one nextval as the start of a block of block-size IDs, so it
+-- needs its own sequence whose increment is exactly the block size of Employee (100). If the two numbers ever
+-- differ, the generator refuses to hand out IDs.
+--
+-- Run before the new version starts, with: psql -v ON_ERROR_STOP=1 -f employee-id-block-sequence.sql
+
+BEGIN;
+
+-- The entity id is a long now. Rewrites the table under an ACCESS EXCLUSIVE lock.
+ALTER TABLE employee ALTER COLUMN id TYPE bigint;
+
+CREATE SEQUENCE IF NOT EXISTS employee_id_block_seq INCREMENT BY 100 START WITH 1;
+ALTER SEQUENCE employee_id_block_seq INCREMENT BY 100;
+
+-- The next nextval returns the first ID of the next block, which must lie behind every existing ID.
+SELECT setval('employee_id_block_seq', coalesce(max(id), 0) + 1, false) FROM employee;
+
+COMMIT;
+
+-- Once no old version that uses it is running any more:
+-- DROP SEQUENCE IF EXISTS employee_seq;
@@ -0,0 +1,27 @@
+-- Adds the unique index behind Product's natural ID (name) to an existing PostgreSQL "product" table.
+-- New schemas get it from Hibernate (@NaturalId / uk_product_name).
+--
+-- Fails if two products share a name; those have to be renamed or merged first:
+--    SELECT name, count(*) FROM product GROUP BY name HAVING count(*) > 1;
+-- CONCURRENTLY does not block writes while the index is built, and cannot run inside a transaction.
+--
+-- The script can be run again, also after it failed half way.
+-- Run with: psql -v ON_ERROR_STOP=1 -f product-name-natural-id.sql (\gexec is a psql command)
+
+-- A failed CREATE INDEX CONCURRENTLY (e.g. because of duplicate names) leaves an INVALID index behind, which
+-- IF NOT EXISTS would then accept. Drop it so the index is built again.
+SELECT 'DROP INDEX CONCURRENTLY uk_product_name'
+FROM pg_index
+WHERE indexrelid = to_regclass('uk_product_name') AND NOT indisvalid
+\gexec
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_product_name ON product (name);
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = 'product'::regclass AND conname = 'uk_product_name') THEN
+        ALTER TABLE product ADD CONSTRAINT uk_product_name UNIQUE USING INDEX uk_product_name;
+    END IF;
+END
+$$;
@@ -0,0 +1,7 @@
+-- Adds the change timestamp that ProductNameSnapshot refreshes from to an existing PostgreSQL "product" table.
+-- Existing rows get the time of the migration, so the first incremental refresh after it reads them all once.
+-- With a non-volatile default (now() is fixed per transaction) PostgreSQL 11+ adds the column, NOT NULL
+-- included, without rewriting or scanning the table. The default also covers rows inserted without Hibernate.
+
+ALTER TABLE product ADD COLUMN updated_at timestamp(6) with time zone NOT NULL DEFAULT now();
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_product_updated_at ON product (updated_at);
@@ -0,0 +1,34 @@
+-- Converts an existing PostgreSQL "student" table from the text ID "<uuid>-<tag>" to the compact format
+-- used by Student: a native uuid primary key plus the signature in the bytea column "id_signature".
+--
+-- The UUID part of every old ID is kept as the new key, so the rows keep their identity. Old keys are random
+-- (version 4) UUIDs; only rows inserted after the migration are time ordered.
+-- The Base64 tag is decoded into id_signature. The signing keys only ever lived in memory (see IdSigner), so
+-- old tags cannot be verified anyway, and old RSA tags were truncated to 100 characters.
+--
+-- The old value stays in "legacy_id" until nothing refers to it any more, then it can be dropped (last step).
+-- Run with: psql -v ON_ERROR_STOP=1 -f student-compact-id.sql
+
+BEGIN;
+
+ALTER TABLE student RENAME COLUMN id TO legacy_id;
+ALTER TABLE student ADD COLUMN id uuid;
+ALTER TABLE student ADD COLUMN id_signature bytea;
+
+UPDATE student
+SET id           = substring(legacy_id FROM 1 FOR 36)::uuid,
+    id_signature = decode(substring(legacy_id FROM 38), 'base64');
+
+ALTER TABLE student DROP CONSTRAINT student_pkey;
+ALTER TABLE student ALTER COLUMN legacy_id DROP NOT NULL;
+ALTER TABLE student ALTER COLUMN id SET NOT NULL;
+ALTER TABLE student ADD CONSTRAINT student_pkey PRIMARY KEY (id);
+CREATE UNIQUE INDEX student_legacy_id_key ON student (legacy_id);
+
+COMMIT;
+
+-- The UPDATE rewrote every row, reclaim the space of the old row versions.
+VACUUM (ANALYZE) student;
+
+-- Once no client looks students up by the old text ID any more:
+-- ALTER TABLE student DROP COLUMN legacy_id;
@@ -0,0 +1,92 @@
+package org.example.bulk;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entities.Stock;
+import org.example.entities.keys.StockKeys;
+import org.example.persistence.CustomPersistenceUnitInfo;
+import org.example.persistence.PersistenceSettings;
+import org.hibernate.jpa.HibernatePersistenceProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StockImporterTest {
+
+    // The layout StreamingExporter writes: every text field quoted, line breaks and quotes inside kept as they are.
+    private static final String FEED = """
+            code,number,color
+            "A-1",1,"red"
+            "B
+            2",2,"dark ""blue""
+            with a line break"
+            "C-3",3,
+            "D,4",4,"green"\r
+            """;
+
+    private static CustomPersistenceUnitInfo unit;
+    private static EntityManagerFactory entityManagerFactory;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void createDatabase() {
+        unit = new CustomPersistenceUnitInfo(PersistenceSettings.load()
+                .with("jpa.persistence-unit.name", "stock-importer-test")
+                .with("jpa.datasource.url", "jdbc:h2:mem:stock-importer;DB_CLOSE_DELAY=-1")
+                .with("jpa.datasource.username", "sa"));
+        entityManagerFactory = new HibernatePersistenceProvider().createContainerEntityManagerFactory(unit,
+                Map.of("hibernate.hbm2ddl.auto", "create"));
+    }
+
+    @AfterAll
+    static void dropDatabase() {
+        entityManagerFactory.close();
+        unit.getDataSourceManager().close();
+    }
+
+    @Test
+    void recordEndsOnlyAtNewlinesOutsideQuotes() {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode("\"a\nb\",1,\"x\"\"\ny\"\nnext");
+        assertEquals(15, StockImporter.recordEnd(buffer, 0, buffer.limit()));
+        assertEquals(-1, StockImporter.recordEnd(buffer, 16, buffer.limit()));
+        // An unquoted field may contain a quote, it does not open a quoted field.
+        ByteBuffer plain = StandardCharsets.UTF_8.encode("a\"b,1,c\nd");
+        assertEquals(7, StockImporter.recordEnd(plain, 0, plain.limit()));
+    }
+
+    @Test
+    void importsQuotedLineBreaksAcrossWindows() throws IOException {
+        Path file = Files.writeString(directory.resolve("feed.csv"), FEED);
+        // Windows smaller than the file, so records with line breaks also end up at a window boundary.
+        for (long windowSize : new long[]{1024, 48, 45}) {
+            ImportReport report = new StockImporter(entityManagerFactory, 2, 10, windowSize).importFile(file);
+            assertEquals(4, report.rows(), "window " + windowSize);
+
+            assertEquals("red", color("A-1", 1));
+            assertEquals("dark \"blue\"\nwith a line break", color("B\n2", 2));
+            assertEquals(null, color("C-3", 3));
+            assertEquals("green", color("D,4", 4));
+        }
+    }
+
+    private static String color(String code, long number) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.find(Stock.class, new StockKeys(code, number)).getColor();
+        } finally {
+            entityManager.close();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryMetricsRecorderTest {
+
+    @Test
+    void inListsOfAnySizeShareOneStatement() {
+        InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder(new SlowQueryLog(10), 100);
+        for (int size = 1; size <= 50; size++) {
+            recorder.recordStatement("select s.code from stock s where s.code in (" + "?,".repeat(size - 1) + "?)", 1_000, 0);
+        }
+        assertEquals(Set.of("select s.code from stock s where s.code in (?...)"), recorder.getStatements().keySet());
+    }
+
+    @Test
+    void statementsBeyondTheLimitAreCountedTogether() {
+        InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder(new SlowQueryLog(10), 3);
+        for (int i = 0; i < 10; i++) {
+            recorder.recordStatement("select * from employee where id = " + i, 1_000, 0);
+        }
+        assertEquals(4, recorder.getStatements().size());
+        assertEquals(7, recorder.getStatements().get(InMemoryMetricsRecorder.OTHER_STATEMENTS).getCount());
+    }
+}
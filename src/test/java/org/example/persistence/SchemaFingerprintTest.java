@@ -0,0 +1,46 @@
+package org.example.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaFingerprintTest {
+
+    private static final List<String> ENTITIES = new CustomPersistenceUnitInfo().getManagedClassNames();
+    private static final Map<String, String> BASE = Map.of("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+
+    @Test
+    void ddlSettingsChangeTheFingerprint() {
+        String base = SchemaFingerprint.compute(ENTITIES, BASE);
+        assertEquals(base, SchemaFingerprint.compute(ENTITIES, Map.of("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect")));
+
+        assertNotEquals(base, SchemaFingerprint.compute(ENTITIES, with("hibernate.default_schema", "sales")));
+        assertNotEquals(base, SchemaFingerprint.compute(ENTITIES,
+                with("hibernate.physical_naming_strategy", "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy")));
+        assertNotEquals(base, SchemaFingerprint.compute(ENTITIES, with("jakarta.persistence.database-major-version", "15")));
+    }
+
+    @Test
+    void runtimeSettingsDoNotChangeTheFingerprint() {
+        String base = SchemaFingerprint.compute(ENTITIES, BASE);
+        assertEquals(base, SchemaFingerprint.compute(ENTITIES, with("hibernate.hbm2ddl.auto", "validate")));
+        assertEquals(base, SchemaFingerprint.compute(ENTITIES, with("hibernate.jdbc.batch_size", "10")));
+    }
+
+    @Test
+    void classesTheMappingRefersToAreIncluded() {
+        List<String> classes = SchemaFingerprint.mappedClasses(ENTITIES, SchemaFingerprint.class.getClassLoader()).stream().toList();
+        assertTrue(classes.contains("org.example.entities.keys.StockKeys"), classes.toString());
+        assertTrue(classes.contains("org.example.entities.generators.PooledSequenceGenerator"), classes.toString());
+        assertTrue(classes.contains("org.example.entities.generators.TimeOrderedUuidGenerator"), classes.toString());
+    }
+
+    private static Map<String, String> with(String name, String value) {
+        return Map.of("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect", name, value);
+    }
+}
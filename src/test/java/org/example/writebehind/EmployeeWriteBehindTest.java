@@ -0,0 +1,206 @@
+package org.example.writebehind;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.entities.Employee;
+import org.example.persistence.CustomPersistenceUnitInfo;
+import org.example.persistence.PersistenceSettings;
+import org.hibernate.jpa.HibernatePersistenceProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs EmployeeWriteBehind against an in-memory H2 database with the application's own persistence unit.
+class EmployeeWriteBehindTest {
+
+    // H2 otherwise reuses the result of a repeated query for a moment after another session committed,
+    // which would show up as stale reads that have nothing to do with the write-behind.
+    private static final String H2_URL = "jdbc:h2:mem:write-behind;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE;LOCK_TIMEOUT=10000";
+
+    // The name column is a varchar(255), a longer name is rejected on every attempt.
+    private static final String TOO_LONG = "x".repeat(300);
+
+    private static CustomPersistenceUnitInfo unit;
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    static void createDatabase() {
+        unit = new CustomPersistenceUnitInfo(PersistenceSettings.load()
+                .with("jpa.persistence-unit.name", "write-behind-test")
+                .with("jpa.datasource.url", H2_URL)
+                .with("jpa.datasource.username", "sa"));
+        entityManagerFactory = new HibernatePersistenceProvider().createContainerEntityManagerFactory(unit,
+                Map.of("hibernate.hbm2ddl.auto", "create", "hibernate.cache.use_second_level_cache", "false"));
+    }
+
+    @AfterAll
+    static void dropDatabase() {
+        entityManagerFactory.close();
+        unit.getDataSourceManager().close();
+    }
+
+    // Every thread owns a few employees and repeats "updateName(id, n), find(id)"; find has to return exactly n.
+    // The flush interval is 1 ms and the flush size small, so batches commit all the time, also between the
+    // database read and the look at the pending changes inside find().
+    @Test
+    void findReadsOwnWritesWhileBatchesCommit() throws Exception {
+        int threads = 4;
+        int rounds = 2_000;
+        List<Long> ids = createEmployees(threads * 4);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (EmployeeWriteBehind writeBehind = writeBehind(8, 1, 3, Durability.MEMORY)) {
+            List<Future<Integer>> staleReads = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                List<Long> own = ids.subList(t * 4, (t + 1) * 4);
+                staleReads.add(executor.submit(() -> {
+                    int stale = 0;
+                    for (int round = 1; round <= rounds; round++) {
+                        long id = own.get(round % own.size());
+                        String expected = Integer.toString(round);
+                        writeBehind.updateName(id, expected);
+                        if (!expected.equals(writeBehind.find(id).getName())) {
+                            stale++;
+                        }
+                    }
+                    return stale;
+                }));
+            }
+            int stale = 0;
+            for (Future<Integer> result : staleReads) {
+                stale += result.get();
+            }
+            assertEquals(0, stale, "stale reads, " + writeBehind.getStats());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void findLeavesTheCallersEntitiesAlone() {
+        long id = createEmployees(1).get(0);
+        try (EmployeeWriteBehind writeBehind = writeBehind(8, 1, 3, Durability.MEMORY)) {
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            try {
+                entityManager.getTransaction().begin();
+                Employee managed = entityManager.find(Employee.class, id);
+                managed.setAddress("Ankara");
+
+                writeBehind.updateName(id, "queued");
+                assertEquals("queued", writeBehind.find(id).getName());
+
+                assertTrue(entityManager.contains(managed));
+                assertSame(managed, entityManager.find(Employee.class, id));
+                assertEquals("Ankara", managed.getAddress());
+                entityManager.getTransaction().commit();
+            } finally {
+                entityManager.close();
+            }
+        }
+        assertEquals("Ankara", read(id).getAddress());
+    }
+
+    @Test
+    void writeThroughFailsForARowMovedToTheDeadLetters() {
+        List<Long> ids = createEmployees(2);
+        try (EmployeeWriteBehind writeBehind = writeBehind(8, 10, 2, Durability.WRITE_THROUGH)) {
+            // Rejected twice, with a backoff in between; the caller waits for the second attempt.
+            IllegalStateException error = assertThrows(IllegalStateException.class,
+                    () -> writeBehind.updateName(ids.get(0), TOO_LONG));
+            assertTrue(error.getMessage().contains("dead letters"), error.getMessage());
+            assertEquals(TOO_LONG, writeBehind.getDeadLetters().get(ids.get(0)).getName());
+
+            // Later updates are not held up by the dead row and return once they are committed.
+            writeBehind.updateName(ids.get(1), "written");
+            assertEquals("written", read(ids.get(1)).getName());
+            assertEquals(1, writeBehind.getStats().deadLetters());
+        }
+    }
+
+    @Test
+    void writeThroughReturnsForRowsWrittenOneByOne() throws Exception {
+        List<Long> ids = createEmployees(9);
+        long blocker = ids.get(8);
+        ExecutorService executor = Executors.newFixedThreadPool(ids.size());
+        EntityManager lockHolder = entityManagerFactory.createEntityManager();
+        try (EmployeeWriteBehind writeBehind = writeBehind(8, 10, 1, Durability.WRITE_THROUGH)) {
+            // While this transaction holds the lock of the blocker row the flusher hangs in its update, so the
+            // next eight updates queue up and are written as one batch, which fails because of the first row.
+            lockHolder.getTransaction().begin();
+            lockHolder.find(Employee.class, blocker).setAddress("locked");
+            lockHolder.flush();
+            Future<?> blocked = executor.submit(() -> writeBehind.updateName(blocker, "blocked"));
+
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                long id = ids.get(i);
+                String name = i == 0 ? TOO_LONG : "name-" + i;
+                results.add(executor.submit(() -> writeBehind.updateName(id, name)));
+            }
+            while (writeBehind.getStats().pending() < 8) {
+                Thread.sleep(5);
+            }
+            lockHolder.getTransaction().commit();
+            blocked.get();
+
+            // Each caller gets the outcome of its own row.
+            Exception error = assertThrows(Exception.class, () -> results.get(0).get());
+            assertTrue(error.getCause().getMessage().contains("dead letters"), error.getMessage());
+            for (int i = 1; i < 8; i++) {
+                results.get(i).get();
+                assertEquals("name-" + i, read(ids.get(i)).getName());
+            }
+            assertEquals(1, writeBehind.getStats().failedFlushes());
+        } finally {
+            lockHolder.close();
+            executor.shutdown();
+        }
+    }
+
+    private static EmployeeWriteBehind writeBehind(int flushSize, long flushIntervalMillis, int maxRowAttempts,
+                                                   Durability durability) {
+        return new EmployeeWriteBehind(entityManagerFactory, 10_000, flushSize, flushIntervalMillis, 5_000,
+                maxRowAttempts, 1_000, durability, null);
+    }
+
+    private static List<Long> createEmployees(int count) {
+        List<Long> ids = new ArrayList<>();
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            for (int i = 0; i < count; i++) {
+                Employee employee = new Employee();
+                employee.setName("0");
+                employee.setAddress("Istanbul");
+                entityManager.persist(employee);
+                entityManager.flush();
+                ids.add(employee.getId());
+            }
+            entityManager.getTransaction().commit();
+        } finally {
+            entityManager.close();
+        }
+        return ids;
+    }
+
+    private static Employee read(long id) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.find(Employee.class, id);
+        } finally {
+            entityManager.close();
+        }
+    }
+}